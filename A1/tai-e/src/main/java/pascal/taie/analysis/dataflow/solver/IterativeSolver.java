@@ -46,6 +46,7 @@ class IterativeSolver<Node, Fact> extends Solver<Node, Fact> {
             changed = false;
             for (Node node : cfg) {
                 if (node != exit) {
+                    nodeVisits.increment();
                     Fact node_out_fact = result.getOutFact(node);
                     for (Node succ : cfg.getSuccsOf(node)) {
                         Fact succ_fact = result.getInFact(succ);
@@ -25,6 +25,10 @@ package pascal.taie.analysis.dataflow.solver;
 import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
 import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.config.ConfigException;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Base class for data-flow analysis solver, which provides common
@@ -37,6 +41,14 @@ public abstract class Solver<Node, Fact> {
 
     protected final DataflowAnalysis<Node, Fact> analysis;
 
+    /**
+     * Number of nodes visited (i.e., polled from the work-list and
+     * transferred) by this solver, accumulated over all solved CFGs.
+     * As the methods are analyzed in parallel, this counter may be
+     * updated by multiple threads.
+     */
+    protected final LongAdder nodeVisits = new LongAdder();
+
     protected Solver(DataflowAnalysis<Node, Fact> analysis) {
         this.analysis = analysis;
     }
@@ -46,7 +58,38 @@ public abstract class Solver<Node, Fact> {
      */
     public static <Node, Fact> Solver<Node, Fact> makeSolver(
             DataflowAnalysis<Node, Fact> analysis) {
-        return new IterativeSolver<>(analysis);
+        return makeSolver(analysis, null);
+    }
+
+    /**
+     * Static factory method to create a new solver of given kind
+     * for given analysis.
+     *
+     * @param kind kind of the solver, which can be "priority",
+     *             i.e., work-list solver that processes nodes in
+     *             (reverse) postorder, or "iterative" (default), i.e.,
+     *             round-robin iterative solver.
+     * @throws ConfigException if the given kind is unknown
+     */
+    public static <Node, Fact> Solver<Node, Fact> makeSolver(
+            DataflowAnalysis<Node, Fact> analysis, @Nullable String kind) {
+        if (kind == null) {
+            kind = "iterative";
+        }
+        return switch (kind) {
+            case "priority" -> new PriorityWorkListSolver<>(analysis);
+            case "iterative" -> new IterativeSolver<>(analysis);
+            default -> throw new ConfigException("Unknown solver: " + kind);
+        };
+    }
+
+    /**
+     * @return the number of nodes visited by this solver so far.
+     * This is useful to compare the iterations needed by different
+     * solvers to reach the fixed point.
+     */
+    public long getNodeVisits() {
+        return nodeVisits.sum();
     }
 
     /**
@@ -0,0 +1,259 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.util.collection.Maps;
+
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Work-list solver which processes nodes in a fixed priority order.
+ * <p>
+ * Before solving, the nodes of the CFG are numbered by a depth-first
+ * traversal from the entry node: in reverse postorder for forward
+ * analyses, and in postorder for backward analyses. The work-list is
+ * a binary heap keyed by these numbers, so that a node is (in the absence
+ * of loops) processed after all of its predecessors (successors), and a
+ * {@link BitSet} records which nodes are currently in the work-list,
+ * thus both enqueueing and membership test take (at most) logarithmic
+ * time, regardless of the size of the CFG.
+ */
+class PriorityWorkListSolver<Node, Fact> extends Solver<Node, Fact> {
+
+    PriorityWorkListSolver(DataflowAnalysis<Node, Fact> analysis) {
+        super(analysis);
+    }
+
+    @Override
+    protected void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        NodeOrder<Node> order = new NodeOrder<>(cfg, true);
+        WorkList workList = new WorkList(order.size());
+        workList.addAll();
+
+        while (!workList.isEmpty()) {
+            Node node = order.getNode(workList.poll());
+            nodeVisits.increment();
+
+            Fact inFact = result.getInFact(node);
+            for (Node pred : cfg.getPredsOf(node)) {
+                analysis.meetInto(result.getOutFact(pred), inFact);
+            }
+
+            Fact outFact = result.getOutFact(node);
+            if (analysis.transferNode(node, inFact, outFact)) {
+                for (Node succ : cfg.getSuccsOf(node)) {
+                    workList.add(order.getIndex(succ));
+                }
+            }
+        }
+    }
+
+    @Override
+    protected void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        NodeOrder<Node> order = new NodeOrder<>(cfg, false);
+        WorkList workList = new WorkList(order.size());
+        workList.addAll();
+
+        while (!workList.isEmpty()) {
+            Node node = order.getNode(workList.poll());
+            nodeVisits.increment();
+
+            Fact outFact = result.getOutFact(node);
+            for (Node succ : cfg.getSuccsOf(node)) {
+                analysis.meetInto(result.getInFact(succ), outFact);
+            }
+
+            Fact inFact = result.getInFact(node);
+            if (analysis.transferNode(node, inFact, outFact)) {
+                for (Node pred : cfg.getPredsOf(node)) {
+                    workList.add(order.getIndex(pred));
+                }
+            }
+        }
+    }
+
+    /**
+     * Numbering of CFG nodes in (reverse) postorder.
+     */
+    private static class NodeOrder<Node> {
+
+        private final Map<Node, Integer> indexes;
+
+        private final Node[] nodes;
+
+        /**
+         * @param reverse if true, numbers the nodes in reverse postorder,
+         *                otherwise in postorder.
+         */
+        @SuppressWarnings("unchecked")
+        private NodeOrder(CFG<Node> cfg, boolean reverse) {
+            int n = cfg.getNumberOfNodes();
+            indexes = Maps.newMap(n);
+            nodes = (Node[]) new Object[n];
+            // number the nodes reachable from entry first, then the
+            // remaining ones (e.g., dead code), so that every node of
+            // the CFG obtains an index.
+            int[] counter = { 0 };
+            visit(cfg, cfg.getEntry(), counter);
+            for (Node node : cfg) {
+                if (!indexes.containsKey(node)) {
+                    visit(cfg, node, counter);
+                }
+            }
+            if (reverse) {
+                for (int i = 0, j = n - 1; i < j; ++i, --j) {
+                    Node tmp = nodes[i];
+                    nodes[i] = nodes[j];
+                    nodes[j] = tmp;
+                }
+                for (int i = 0; i < n; ++i) {
+                    indexes.put(nodes[i], i);
+                }
+            }
+        }
+
+        /**
+         * Iterative depth-first traversal from given root, which assigns
+         * postorder numbers to the newly visited nodes. We avoid recursion
+         * as CFGs of large methods may be very deep.
+         */
+        private void visit(CFG<Node> cfg, Node root, int[] counter) {
+            Deque<Node> nodeStack = new ArrayDeque<>();
+            Deque<Iterator<Node>> succStack = new ArrayDeque<>();
+            indexes.put(root, -1); // mark as visited
+            nodeStack.push(root);
+            succStack.push(cfg.getSuccsOf(root).iterator());
+            while (!nodeStack.isEmpty()) {
+                Iterator<Node> succs = succStack.peek();
+                if (succs.hasNext()) {
+                    Node succ = succs.next();
+                    if (!indexes.containsKey(succ)) {
+                        indexes.put(succ, -1);
+                        nodeStack.push(succ);
+                        succStack.push(cfg.getSuccsOf(succ).iterator());
+                    }
+                } else {
+                    Node node = nodeStack.pop();
+                    succStack.pop();
+                    int index = counter[0]++;
+                    indexes.put(node, index);
+                    nodes[index] = node;
+                }
+            }
+        }
+
+        private int size() {
+            return nodes.length;
+        }
+
+        private int getIndex(Node node) {
+            return indexes.get(node);
+        }
+
+        private Node getNode(int index) {
+            return nodes[index];
+        }
+    }
+
+    /**
+     * Work-list of node indexes, which always polls the smallest index.
+     * It is implemented as a binary min-heap over primitive ints,
+     * together with a {@link BitSet} for constant-time membership test.
+     */
+    private static class WorkList {
+
+        private final BitSet inList;
+
+        private final int[] heap;
+
+        private int size = 0;
+
+        private WorkList(int capacity) {
+            inList = new BitSet(capacity);
+            heap = new int[capacity];
+        }
+
+        /**
+         * Adds all indexes to this work-list. As the indexes are added
+         * in ascending order, the resulting array is already a valid heap.
+         */
+        private void addAll() {
+            for (int i = 0; i < heap.length; ++i) {
+                heap[i] = i;
+            }
+            size = heap.length;
+            inList.set(0, heap.length);
+        }
+
+        private void add(int index) {
+            if (inList.get(index)) {
+                return;
+            }
+            inList.set(index);
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (heap[parent] <= index) {
+                    break;
+                }
+                heap[i] = heap[parent];
+                i = parent;
+            }
+            heap[i] = index;
+        }
+
+        private int poll() {
+            int min = heap[0];
+            inList.clear(min);
+            int last = heap[--size];
+            int i = 0;
+            int half = size >>> 1;
+            while (i < half) {
+                int child = 2 * i + 1;
+                int right = child + 1;
+                if (right < size && heap[right] < heap[child]) {
+                    child = right;
+                }
+                if (last <= heap[child]) {
+                    break;
+                }
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = last;
+            return min;
+        }
+
+        private boolean isEmpty() {
+            return size == 0;
+        }
+    }
+}
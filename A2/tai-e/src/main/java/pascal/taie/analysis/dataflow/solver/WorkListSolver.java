@@ -44,6 +44,7 @@ class WorkListSolver<Node, Fact> extends Solver<Node, Fact> {
 
         while (!list.isEmpty()) {
             Node node = list.pollFirst();
+            nodeVisits.increment();
 
             Fact node_in_fact = result.getInFact(node);
             for (Node pred : cfg.getPredsOf(node)) {
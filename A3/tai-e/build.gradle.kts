@@ -1,6 +1,7 @@
 plugins {
     id("java")
     id("application")
+    id("me.champeau.jmh") version "0.6.8"
 }
 
 repositories {
@@ -13,16 +14,40 @@ dependencies {
     testImplementation("junit:junit:4.13")
 }
 
+// the bit-vector kernels based on the Vector API (src/vector/java) are
+// opt-in by "gradlew -Pvector ...", as the API is an incubator module;
+// the scalar kernels are used otherwise
+val vector = project.hasProperty("vector")
+val vectorModule = if (vector) listOf("--add-modules", "jdk.incubator.vector") else listOf()
+
+if (vector) {
+    sourceSets.main { java.srcDir("src/vector/java") }
+}
+
 application {
     mainClass.set("pascal.taie.Assignment")
+    applicationDefaultJvmArgs = vectorModule
 }
 
-tasks.compileJava { options.encoding = "UTF-8" }
+tasks.compileJava {
+    options.encoding = "UTF-8"
+    options.compilerArgs.addAll(vectorModule)
+}
 tasks.compileTestJava { options.encoding = "UTF-8" }
 
 tasks.test {
     useJUnit()
     maxHeapSize = "4G"
+    jvmArgs(vectorModule)
+}
+
+// run benchmarks by "gradlew jmh", and the results are written to
+// build/results/jmh/results.json, including allocation rate per operation
+jmh {
+    resultFormat.set("JSON")
+    profilers.add("gc")
+    jvmArgs.add("-Xmx4G")
+    jvmArgs.addAll(vectorModule)
 }
 
 java {
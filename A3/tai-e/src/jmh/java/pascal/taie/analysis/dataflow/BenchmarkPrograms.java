@@ -0,0 +1,149 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow;
+
+import pascal.taie.Main;
+import pascal.taie.World;
+import pascal.taie.analysis.exception.ThrowAnalysis;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.IR;
+import pascal.taie.language.classes.JMethod;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Static utility methods for loading the programs to be benchmarked.
+ */
+final class BenchmarkPrograms {
+
+    private BenchmarkPrograms() {
+    }
+
+    /**
+     * Directory of the test programs which are benchmarked as is.
+     */
+    private static final String TEST_CLASS_PATH = "src/test/resources/dataflow/deadcode";
+
+    /**
+     * Prefix of the programs which are generated with given scale,
+     * e.g., "synthetic-100".
+     */
+    private static final String SYNTHETIC = "synthetic-";
+
+    /**
+     * Builds the world for given program, and returns the IRs of its
+     * methods, which have been equipped with control-flow graphs.
+     *
+     * @param program either the name of a main class in
+     *                {@link #TEST_CLASS_PATH}, or "synthetic-N" for a
+     *                generated program whose main method contains N loops.
+     */
+    static List<IR> load(String program) {
+        String classPath;
+        String main;
+        if (program.startsWith(SYNTHETIC)) {
+            int scale = Integer.parseInt(program.substring(SYNTHETIC.length()));
+            classPath = generate(scale).toString();
+            main = "Synthetic";
+        } else {
+            classPath = TEST_CLASS_PATH;
+            main = program;
+        }
+        World.reset();
+        Main.buildWorld("-pp", "-cp", classPath, "-m", main);
+        ThrowAnalysis throwAnalysis = new ThrowAnalysis(new AnalysisConfig(
+                ThrowAnalysis.ID, "exception", "explicit", "algorithm", "intra"));
+        CFGBuilder cfgBuilder = new CFGBuilder(new AnalysisConfig(
+                CFGBuilder.ID, "exception", "explicit", "dump", false));
+        List<IR> irs = World.get()
+                .getClassHierarchy()
+                .applicationClasses()
+                .flatMap(c -> c.getDeclaredMethods().stream())
+                .filter(m -> !m.isAbstract() && !m.isNative())
+                .map(JMethod::getIR)
+                .toList();
+        irs.forEach(ir -> {
+            ir.storeResult(ThrowAnalysis.ID, throwAnalysis.analyze(ir));
+            ir.storeResult(CFGBuilder.ID, cfgBuilder.analyze(ir));
+        });
+        return irs;
+    }
+
+    /**
+     * @return the IR which has the most variables among given IRs.
+     */
+    static IR largest(List<IR> irs) {
+        return irs.stream()
+                .max(Comparator.comparingInt(ir -> ir.getVars().size()))
+                .orElseThrow();
+    }
+
+    /**
+     * Generates the source of a program whose main method contains
+     * given number of loops with branches, constants and dead assignments,
+     * so that the CFGs, as well as the variables, grow linearly with the scale.
+     *
+     * @return the class path containing the generated program.
+     */
+    private static Path generate(int scale) {
+        StringBuilder source = new StringBuilder();
+        source.append("class Synthetic {\n");
+        source.append("    public static void main(String[] args) {\n");
+        source.append("        int n = args.length, sum = 0;\n");
+        for (int i = 0; i < scale; ++i) {
+            source.append(String.format("""
+                            int a%1$d = %1$d, b%1$d = a%1$d * 2, c%1$d = n;
+                            for (int i = 0; i < n; ++i) {
+                                if (b%1$d > a%1$d) {
+                                    c%1$d = c%1$d + i;
+                                } else {
+                                    int dead%1$d = c%1$d - a%1$d;
+                                }
+                                a%1$d = a%1$d + b%1$d;
+                            }
+                            sum = sum + c%1$d;
+                    """, i));
+        }
+        source.append("        use(sum);\n");
+        source.append("    }\n\n");
+        source.append("    static void use(int x) {\n");
+        source.append("    }\n");
+        source.append("}\n");
+        try {
+            Path dir = Files.createTempDirectory("tai-e-synthetic");
+            Files.writeString(dir.resolve("Synthetic.java"), source);
+            dir.toFile().deleteOnExit();
+            dir.resolve("Synthetic.java").toFile().deleteOnExit();
+            return dir;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
+import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.analysis.dataflow.analysis.constprop.Value;
+import pascal.taie.analysis.dataflow.fact.MapFact;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.exp.Var;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the operations of {@link MapFact}, through {@link CPFact}
+ * in its dense, hash-based and persistent representations. The facts
+ * are made of the variables of the largest method in given program.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapFactBenchmark {
+
+    @Param({"synthetic-10", "synthetic-100"})
+    public String program;
+
+    @Param({"dense", "hybrid", "persistent"})
+    public String fact;
+
+    private List<Var> vars;
+
+    private ConstantPropagation constProp;
+
+    /**
+     * Maps each variable to a constant of its index.
+     */
+    private CPFact constants;
+
+    /**
+     * Maps the variables with even indexes to NAC,
+     * and the others to the same constants as {@link #constants}.
+     */
+    private CPFact mixed;
+
+    @Setup
+    public void setUp() {
+        vars = BenchmarkPrograms.largest(BenchmarkPrograms.load(program)).getVars();
+        constProp = new ConstantPropagation(new AnalysisConfig(
+                ConstantPropagation.ID, "edge-refine", false, "fact", fact));
+        constants = constProp.newInitialFact();
+        mixed = constProp.newInitialFact();
+        vars.forEach(var -> {
+            Value constant = Value.makeConstant(var.getIndex());
+            constants.update(var, constant);
+            mixed.update(var, var.getIndex() % 2 == 0 ? Value.getNAC() : constant);
+        });
+    }
+
+    @Benchmark
+    public CPFact copy() {
+        return constants.copy();
+    }
+
+    @Benchmark
+    public CPFact copyFrom() {
+        CPFact result = constProp.newInitialFact();
+        result.copyFrom(constants);
+        return result;
+    }
+
+    @Benchmark
+    public CPFact update() {
+        CPFact result = constants.copy();
+        for (Var var : vars) {
+            result.update(var, Value.getNAC());
+        }
+        return result;
+    }
+
+    @Benchmark
+    public int get() {
+        int count = 0;
+        for (Var var : vars) {
+            if (mixed.get(var).isConstant()) {
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * As meet is performed in place, this also includes
+     * the cost of copying the target fact.
+     */
+    @Benchmark
+    public CPFact meet() {
+        CPFact result = mixed.copy();
+        constProp.meetInto(constants, result);
+        return result;
+    }
+
+    @Benchmark
+    public boolean equals() {
+        return constants.equals(mixed);
+    }
+}
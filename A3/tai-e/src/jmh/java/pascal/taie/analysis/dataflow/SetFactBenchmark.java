@@ -0,0 +1,135 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pascal.taie.analysis.dataflow.fact.BitSetFact;
+import pascal.taie.analysis.dataflow.fact.SetFact;
+import pascal.taie.ir.exp.Var;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the operations of {@link SetFact}{@code <Var>} in its
+ * hash-based and bit-vector representations. The facts are made of
+ * the variables of the largest method in given program.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SetFactBenchmark {
+
+    @Param({"synthetic-10", "synthetic-100"})
+    public String program;
+
+    @Param({"hybrid", "bitset"})
+    public String fact;
+
+    private List<Var> vars;
+
+    /**
+     * Contains the variables with even indexes.
+     */
+    private SetFact<Var> evens;
+
+    /**
+     * Contains the variables whose indexes are not multiple of 3.
+     */
+    private SetFact<Var> others;
+
+    @Setup
+    public void setUp() {
+        vars = BenchmarkPrograms.largest(BenchmarkPrograms.load(program)).getVars();
+        evens = newFact();
+        others = newFact();
+        vars.forEach(var -> {
+            if (var.getIndex() % 2 == 0) {
+                evens.add(var);
+            }
+            if (var.getIndex() % 3 != 0) {
+                others.add(var);
+            }
+        });
+    }
+
+    private SetFact<Var> newFact() {
+        return "bitset".equals(fact) ? new BitSetFact() : new SetFact<>();
+    }
+
+    @Benchmark
+    public SetFact<Var> copy() {
+        return evens.copy();
+    }
+
+    @Benchmark
+    public SetFact<Var> union() {
+        SetFact<Var> result = evens.copy();
+        result.union(others);
+        return result;
+    }
+
+    @Benchmark
+    public SetFact<Var> intersect() {
+        SetFact<Var> result = evens.copy();
+        result.intersect(others);
+        return result;
+    }
+
+    @Benchmark
+    public SetFact<Var> setToGenKill() {
+        SetFact<Var> result = newFact();
+        result.setToGenKill(others, evens, others);
+        return result;
+    }
+
+    @Benchmark
+    public boolean equals() {
+        return evens.equals(others);
+    }
+
+    @Benchmark
+    public int contains() {
+        int count = 0;
+        for (Var var : vars) {
+            if (evens.contains(var)) {
+                ++count;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import pascal.taie.analysis.dataflow.analysis.LiveVariableAnalysis;
+import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
+import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.analysis.dataflow.fact.SetFact;
+import pascal.taie.analysis.dataflow.solver.DataflowSolver;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link DataflowSolver#solve(CFG)} for live variable analysis and
+ * constant propagation, over all methods of given program.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SolverBenchmark {
+
+    @Param({"ControlFlowUnreachable", "DeadAssignment", "Loops",
+            "UnreachableIfBranch", "UnreachableSwitchBranch",
+            "synthetic-10", "synthetic-100", "synthetic-1000"})
+    public String program;
+
+    @Param({"priority", "worklist", "wto"})
+    public String solver;
+
+    @Param({"false", "true"})
+    public boolean block;
+
+    private List<CFG<Stmt>> cfgs;
+
+    private DataflowSolver<Stmt, SetFact<Var>> liveVarSolver;
+
+    private DataflowSolver<Stmt, CPFact> constPropSolver;
+
+    @Setup
+    public void setUp() {
+        List<IR> irs = BenchmarkPrograms.load(program);
+        cfgs = irs.stream()
+                .map(ir -> ir.<CFG<Stmt>>getResult(CFGBuilder.ID))
+                .toList();
+        liveVarSolver = new LiveVariableAnalysis(new AnalysisConfig(
+                LiveVariableAnalysis.ID, "strongly", false,
+                "solver", solver, "block", block)).getSolver();
+        constPropSolver = new ConstantPropagation(new AnalysisConfig(
+                ConstantPropagation.ID, "edge-refine", false,
+                "solver", solver, "block", block)).getSolver();
+    }
+
+    @Benchmark
+    public void liveVariables(Blackhole bh) {
+        for (CFG<Stmt> cfg : cfgs) {
+            bh.consume(liveVarSolver.solve(cfg));
+        }
+    }
+
+    @Benchmark
+    public void constantPropagation(Blackhole bh) {
+        for (CFG<Stmt> cfg : cfgs) {
+            bh.consume(constPropSolver.solve(cfg));
+        }
+    }
+}
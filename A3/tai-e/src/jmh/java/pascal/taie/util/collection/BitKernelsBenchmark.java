@@ -0,0 +1,101 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.util.collection;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the scalar and vector {@link BitKernels} on bit vectors
+ * of different widths. Note that "vector" falls back to the scalar
+ * kernels unless the benchmarks are run with Gradle property
+ * {@code vector} (i.e., {@code gradlew -Pvector jmh}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BitKernelsBenchmark {
+
+    /**
+     * Number of words, i.e., 64 bits each.
+     */
+    @Param({"4", "64", "1024"})
+    public int words;
+
+    @Param({"scalar", "vector"})
+    public String kernels;
+
+    private BitKernels bitKernels;
+
+    private long[] target;
+
+    private long[] source;
+
+    @Setup
+    public void setUp() {
+        bitKernels = "vector".equals(kernels) ?
+                BitKernels.get() : BitKernels.scalar();
+        Random random = new Random(0);
+        target = random.longs(words).toArray();
+        source = random.longs(words).toArray();
+    }
+
+    // the operations below are idempotent after the first invocation,
+    // so every invocation does the same work on the same operands
+
+    @Benchmark
+    public boolean or() {
+        return bitKernels.or(target, source, words);
+    }
+
+    @Benchmark
+    public boolean and() {
+        return bitKernels.and(target, source, words);
+    }
+
+    @Benchmark
+    public boolean andNot() {
+        return bitKernels.andNot(target, source, words);
+    }
+
+    @Benchmark
+    public int popCount() {
+        return bitKernels.popCount(target, words);
+    }
+}
@@ -0,0 +1,267 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.IRPrinter;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.function.Supplier;
+
+/**
+ * Persistent on-disk cache of the results of a method analysis, which
+ * allows the methods that are unchanged across runs, e.g., the ones
+ * of JDK and libraries, to be analyzed only once.
+ * <p>
+ * The cache is content-addressed: the key of a result is the SHA-256
+ * digest of the analysis ID, the analysis options, the versions of the
+ * cache format and of the codec, the IR of the method (the signature,
+ * variables and statements), and its control-flow graph.
+ * If the analysis depends on the results of other analyses, their keys
+ * are also part of the key, so that the result is reused only if the
+ * dependencies are reused as well. Each result is stored in file
+ * {@code <cache-dir>/<analysis ID>/<key>} in the format given by a
+ * {@link Codec}, which (de)serializes the IR elements by their indexes.
+ *
+ * @param <R> type of the analysis results
+ */
+public class ResultCache<R> {
+
+    private static final Logger logger = LogManager.getLogger(ResultCache.class);
+
+    /**
+     * Prefix of the keys of the cached results stored in the IR.
+     */
+    private static final String KEY_PREFIX = "cache-key:";
+
+    /**
+     * Key of the digest of IR stored in the IR.
+     */
+    private static final String IR_DIGEST = "cache-ir-digest";
+
+    /**
+     * Version of the format of the keys and files of the cache,
+     * which must be bumped whenever the format changes.
+     */
+    private static final int FORMAT_VERSION = 1;
+
+    /**
+     * Serializes and deserializes the results of an analysis.
+     */
+    public interface Codec<R> {
+
+        void write(R result, IR ir, DataOutput out) throws IOException;
+
+        R read(IR ir, DataInput in) throws IOException;
+
+        /**
+         * @return the version of the results, which must be bumped whenever
+         * the serialized format or the analysis computing the results
+         * changes, so that the results cached before are not reused.
+         */
+        int getVersion();
+    }
+
+    private final String id;
+
+    private final String options;
+
+    private final String version;
+
+    private final Path dir;
+
+    private final Codec<R> codec;
+
+    /**
+     * @param cacheDir the directory of the cache
+     * @param id       ID of the analysis
+     * @param options  options of the analysis
+     * @param codec    codec of the results
+     */
+    public ResultCache(String cacheDir, String id,
+                       AnalysisOptions options, Codec<R> codec) {
+        this.id = id;
+        this.options = options.toString();
+        this.version = FORMAT_VERSION + "." + codec.getVersion();
+        this.dir = Path.of(cacheDir, id);
+        this.codec = codec;
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create cache directory " + dir, e);
+        }
+    }
+
+    /**
+     * Returns the cached result of given IR if it exists, otherwise
+     * computes the result by the analyzer and caches it.
+     *
+     * @param ir           the IR to be analyzed
+     * @param analyzer     computes the result of the IR
+     * @param dependencies IDs of the analyses whose results are used
+     *                     by the analyzer. If any of them is not cached,
+     *                     the result is computed without caching.
+     */
+    public R get(IR ir, Supplier<R> analyzer, String... dependencies) {
+        MessageDigest md = newDigest();
+        md.update(id.getBytes(StandardCharsets.UTF_8));
+        md.update(options.getBytes(StandardCharsets.UTF_8));
+        md.update(version.getBytes(StandardCharsets.UTF_8));
+        for (String dependency : dependencies) {
+            String dependencyKey = ir.getResult(KEY_PREFIX + dependency);
+            if (dependencyKey == null) {
+                return analyzer.get();
+            }
+            md.update(dependencyKey.getBytes(StandardCharsets.UTF_8));
+        }
+        md.update(getDigest(ir));
+        String key = HexFormat.of().formatHex(md.digest());
+        Path file = dir.resolve(key);
+        R result = null;
+        if (Files.exists(file)) {
+            try (DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(Files.newInputStream(file)))) {
+                result = codec.read(ir, in);
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Failed to read cached result {} of {}, re-analyze it",
+                        file, ir.getMethod(), e);
+            }
+        }
+        if (result == null) {
+            result = analyzer.get();
+            write(result, ir, file);
+        }
+        ir.storeResult(KEY_PREFIX + id, key);
+        return result;
+    }
+
+    /**
+     * Writes the result to a temporary file, and then moves it to the
+     * cache, so that a partially-written result is never read.
+     */
+    private void write(R result, IR ir, Path file) {
+        try {
+            Path temp = Files.createTempFile(dir, null, ".tmp");
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                codec.write(result, ir, out);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Failed to cache result of {}", ir.getMethod(), e);
+        }
+    }
+
+    /**
+     * @return the digest of given IR and its control-flow graph (if exists),
+     * which is computed once for all analyses.
+     */
+    private static byte[] getDigest(IR ir) {
+        byte[] digest = ir.getResult(IR_DIGEST);
+        if (digest == null) {
+            MessageDigest md = newDigest();
+            StringBuilder builder = new StringBuilder();
+            builder.append(ir.getMethod()).append('\n');
+            for (Var var : ir.getVars()) {
+                builder.append(var.getName()).append(':')
+                        .append(var.getType()).append('\n');
+            }
+            for (Stmt stmt : ir) {
+                builder.append(IRPrinter.toString(stmt)).append('\n');
+            }
+            CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+            if (cfg != null) {
+                for (Stmt node : cfg) {
+                    builder.append(getIndex(cfg, node)).append("->");
+                    for (Edge<Stmt> edge : cfg.getOutEdgesOf(node)) {
+                        builder.append(' ').append(edge.getKind())
+                                .append(':').append(getIndex(cfg, edge.getTarget()));
+                        if (edge.isSwitchCase()) {
+                            builder.append('#').append(edge.getCaseValue());
+                        }
+                    }
+                    builder.append('\n');
+                }
+            }
+            digest = md.digest(builder.toString().getBytes(StandardCharsets.UTF_8));
+            ir.storeResult(IR_DIGEST, digest);
+        }
+        return digest;
+    }
+
+    /**
+     * @return the index of given node in the CFG, which is the index of
+     * the statement, or -1 (-2) for the entry (exit) of the CFG.
+     */
+    public static int getIndex(CFG<Stmt> cfg, Stmt node) {
+        if (cfg.isEntry(node)) {
+            return -1;
+        } else if (cfg.isExit(node)) {
+            return -2;
+        }
+        return node.getIndex();
+    }
+
+    /**
+     * @return the node of given index in the CFG, see {@link #getIndex(CFG, Stmt)}.
+     */
+    public static Stmt getNode(CFG<Stmt> cfg, int index) {
+        return switch (index) {
+            case -1 -> cfg.getEntry();
+            case -2 -> cfg.getExit();
+            default -> cfg.getIR().getStmt(index);
+        };
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError("SHA-256 is always supported", e);
+        }
+    }
+}
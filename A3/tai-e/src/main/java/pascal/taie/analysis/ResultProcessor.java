@@ -26,6 +26,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import pascal.taie.World;
 import pascal.taie.config.AnalysisConfig;
+import pascal.taie.config.ConfigException;
 import pascal.taie.ir.IR;
 import pascal.taie.ir.IRPrinter;
 import pascal.taie.ir.stmt.Stmt;
@@ -39,8 +40,10 @@ import java.io.BufferedReader;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.LinkedHashSet;
@@ -48,7 +51,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -59,6 +64,10 @@ import static pascal.taie.util.collection.CollectionUtils.getOne;
  * This class is designed mainly for testing purpose. Currently, it supports
  * input/output analysis results from/to file, and compare analysis results
  * with input results. This analysis should be placed after the other analyses.
+ * <p>
+ * The results are dumped in text format by default, or in the binary format
+ * of {@link ResultFile} if option "format" is "binary". The format of input
+ * results is detected automatically.
  */
 public class ResultProcessor extends ProgramAnalysis {
 
@@ -68,15 +77,50 @@ public class ResultProcessor extends ProgramAnalysis {
 
     private final String action;
 
+    /**
+     * Number of threads used to process the results of different methods.
+     */
+    private final int parallelism;
+
+    /**
+     * Whether release the processed results stored in the IR of each
+     * method once the method has been processed, so that they can be
+     * reclaimed while the remaining methods are processed. As this analysis
+     * runs after the analyses whose results it processes, this does not
+     * reduce the peak memory of those analyses.
+     */
+    private final boolean release;
+
+    /**
+     * Pool of the threads processing the results, which is non-null
+     * only when parallelism is greater than 1.
+     */
+    private ForkJoinPool pool;
+
     private PrintStream out;
 
+    /**
+     * Writer of the results in binary format, or null if the results
+     * are dumped in text format.
+     */
+    private ResultFile.Writer writer;
+
     private MultiMap<Pair<String, String>, String> inputs;
 
+    /**
+     * Reader of the input results in binary format, or null if
+     * the input results are in text format.
+     */
+    private ResultFile.Reader binaryInputs;
+
     private Set<String> mismatches;
 
     public ResultProcessor(AnalysisConfig config) {
         super(config);
         action = getOptions().getString("action");
+        parallelism = getOptions().get("parallelism") instanceof Integer n ?
+                n : 1;
+        release = getOptions().getBooleanOrDefault("release", false);
     }
 
     @Override
@@ -96,7 +140,23 @@ public class ResultProcessor extends ProgramAnalysis {
                 .stream()
                 .collect(Collectors.groupingBy(id -> World.get().getResult(id) != null));
         if (groups.containsKey(false)) {
-            processIntraResults(groups.get(false));
+            if (parallelism > 1) {
+                pool = new ForkJoinPool(parallelism);
+            }
+            try {
+                processIntraResults(groups.get(false));
+            } finally {
+                if (pool != null) {
+                    pool.shutdown();
+                }
+            }
+        }
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to write output file", e);
+            }
         }
         if (getOptions().getBoolean("log-mismatches")) {
             mismatches.forEach(logger::info);
@@ -106,7 +166,13 @@ public class ResultProcessor extends ProgramAnalysis {
 
     private void setOutput() {
         String output = getOptions().getString("file");
-        if (output != null) {
+        if ("binary".equals(getOptions().getString("format"))) {
+            if (output == null) {
+                throw new ConfigException(
+                        "Binary format requires option \"file\" of " + ID);
+            }
+            writer = new ResultFile.Writer(Path.of(output));
+        } else if (output != null) {
             try {
                 out = new PrintStream(output);
             } catch (FileNotFoundException e) {
@@ -121,6 +187,10 @@ public class ResultProcessor extends ProgramAnalysis {
         String input = getOptions().getString("file");
         Path path = Path.of(input);
         try {
+            if (ResultFile.isBinary(path)) {
+                binaryInputs = new ResultFile.Reader(path);
+                return;
+            }
             inputs = Maps.newMultiMap();
             BufferedReader reader = Files.newBufferedReader(path);
             String line;
@@ -152,6 +222,26 @@ public class ResultProcessor extends ProgramAnalysis {
         }
     }
 
+    /**
+     * @return the input results of given method and analysis.
+     */
+    private Set<String> getInputs(JMethod method, String id) {
+        if (binaryInputs != null) {
+            List<String> lines = binaryInputs.get(getKey(method, id));
+            return lines != null ? new LinkedHashSet<>(lines) : Set.of();
+        } else {
+            return inputs.get(new Pair<>(method.toString(), id));
+        }
+    }
+
+    /**
+     * @return the key of the results of given method and analysis
+     * in binary format.
+     */
+    private static String getKey(JMethod method, String id) {
+        return method + " (" + id + ")";
+    }
+
     private void processIntraResults(List<String> analyses) {
         Stream<JMethod> methods = World.get()
                 .getClassHierarchy()
@@ -164,31 +254,76 @@ public class ResultProcessor extends ProgramAnalysis {
         processResults(methods, analyses, (m, id) -> m.getIR().getResult(id));
     }
 
+    /**
+     * Processes the results of given methods. When parallelism is greater
+     * than 1, the methods are processed on a dedicated {@link ForkJoinPool},
+     * and the output lines (for dump) or mismatches (for compare) of each
+     * method are buffered, and then emitted in the order of the methods
+     * as soon as their predecessors are emitted, so that the outcome is
+     * the same as processing the methods serially.
+     */
     private void processResults(Stream<JMethod> methods, List<String> analyses,
                                 BiFunction<JMethod, String, ?> resultGetter) {
-        methods.forEach(method ->
-                analyses.forEach(id -> {
-                    switch (action) {
-                        case "dump" -> dumpResult(method, id, resultGetter);
-                        case "compare" -> compareResult(method, id, resultGetter);
-                    }
-                })
-        );
+        // out is null when dumping in binary format, thus it must not be
+        // bound before the sink is used
+        Consumer<String> sink = switch (action) {
+            case "dump" -> s -> out.println(s);
+            case "compare" -> mismatches::add;
+            default -> s -> {};
+        };
+        if (pool != null) {
+            pool.submit(() -> methods
+                    .parallel()
+                    .map(method -> {
+                        List<String> output = new ArrayList<>();
+                        processResult(method, analyses, resultGetter, output::add);
+                        return output;
+                    })
+                    .forEachOrdered(output -> output.forEach(sink))
+            ).join();
+        } else {
+            methods.forEach(method ->
+                    processResult(method, analyses, resultGetter, sink));
+        }
+    }
+
+    private void processResult(JMethod method, List<String> analyses,
+                               BiFunction<JMethod, String, ?> resultGetter,
+                               Consumer<String> sink) {
+        analyses.forEach(id -> {
+            switch (action) {
+                case "dump" -> dumpResult(method, id, resultGetter, sink);
+                case "compare" -> compareResult(method, id, resultGetter, sink);
+            }
+        });
+        if (release) {
+            // the processed results of this method are no longer needed,
+            // while the other results stored in the IR, e.g., CFG, are kept,
+            // as they may still be used by the analyses running concurrently
+            analyses.forEach(method.getIR()::clearResult);
+        }
     }
 
     private void dumpResult(JMethod method, String id,
-                            BiFunction<JMethod, String, ?> resultGetter) {
-        out.printf("-------------------- %s (%s) --------------------%n", method, id);
+                            BiFunction<JMethod, String, ?> resultGetter,
+                            Consumer<String> out) {
+        List<String> lines = new ArrayList<>();
         Object result = resultGetter.apply(method, id);
         if (result instanceof Set) {
-            ((Set<?>) result).forEach(e -> out.println(toString(e)));
+            ((Set<?>) result).forEach(e -> lines.add(toString(e)));
         } else if (result instanceof StmtResult<?> StmtResult) {
             IR ir = method.getIR();
-            ir.forEach(stmt -> out.println(toString(stmt, StmtResult)));
+            ir.forEach(stmt -> lines.add(toString(stmt, StmtResult)));
+        } else {
+            lines.add(toString(result));
+        }
+        if (writer != null) {
+            writer.put(getKey(method, id), lines);
         } else {
-            out.println(toString(result));
+            out.accept(String.format("-------------------- %s (%s) --------------------", method, id));
+            lines.forEach(out);
+            out.accept("");
         }
-        out.println();
     }
 
     /**
@@ -212,8 +347,9 @@ public class ResultProcessor extends ProgramAnalysis {
     }
 
     private void compareResult(JMethod method, String id,
-                               BiFunction<JMethod, String, ?> resultGetter) {
-        Set<String> inputResult = inputs.get(new Pair<>(method.toString(), id));
+                               BiFunction<JMethod, String, ?> resultGetter,
+                               Consumer<String> mismatches) {
+        Set<String> inputResult = getInputs(method, id);
         Object result = resultGetter.apply(method, id);
         if (result instanceof Set) {
             Set<String> given = ((Set<?>) result)
@@ -222,26 +358,25 @@ public class ResultProcessor extends ProgramAnalysis {
                     .collect(Collectors.toCollection(LinkedHashSet::new));
             given.forEach(s -> {
                 if (!inputResult.contains(s)) {
-                    mismatches.add(method + " " + s +
+                    mismatches.accept(method + " " + s +
                             " should NOT be included");
                 }
             });
             inputResult.forEach(s -> {
                 if (!given.contains(s)) {
-                    mismatches.add(method + " " + s +
+                    mismatches.accept(method + " " + s +
                             " should be included");
                 }
             });
         } else if (result instanceof StmtResult<?> StmtResult) {
-            Set<String> lines = inputs.get(new Pair<>(method.toString(), id));
             IR ir = method.getIR();
             ir.forEach(stmt -> {
                 String stmtStr = toString(stmt);
                 String given = toString(stmt, StmtResult);
-                for (String line : lines) {
+                for (String line : inputResult) {
                     if (line.startsWith(stmtStr) && !line.equals(given)) {
                         int idx = stmtStr.length();
-                        mismatches.add(String.format("%s %s expected: %s, given: %s",
+                        mismatches.accept(String.format("%s %s expected: %s, given: %s",
                                 method, stmtStr, line.substring(idx + 1),
                                 given.substring(idx + 1)));
                     }
@@ -249,7 +384,7 @@ public class ResultProcessor extends ProgramAnalysis {
             });
         } else if (inputResult.size() == 1) {
             if (!toString(result).equals(getOne(inputResult))) {
-                mismatches.add(String.format("%s expected: %s, given: %s",
+                mismatches.accept(String.format("%s expected: %s, given: %s",
                         method, getOne(inputResult), toString(result)));
             }
         } else {
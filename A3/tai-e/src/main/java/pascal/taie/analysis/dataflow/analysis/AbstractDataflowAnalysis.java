@@ -22,30 +22,132 @@
 
 package pascal.taie.analysis.dataflow.analysis;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import pascal.taie.analysis.MethodAnalysis;
+import pascal.taie.analysis.ResultCache;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.solver.DataflowSolver;
 import pascal.taie.analysis.dataflow.solver.Solver;
 import pascal.taie.analysis.graph.cfg.CFG;
 import pascal.taie.analysis.graph.cfg.CFGBuilder;
 import pascal.taie.analysis.graph.cfg.Edge;
 import pascal.taie.config.AnalysisConfig;
+import pascal.taie.config.ConfigException;
 import pascal.taie.ir.IR;
+import pascal.taie.ir.stmt.Stmt;
+
+import javax.annotation.Nullable;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.function.Function;
 
 public abstract class AbstractDataflowAnalysis<Node, Fact>
         extends MethodAnalysis
         implements DataflowAnalysis<Node, Fact> {
 
-    private final Solver<Node, Fact> solver;
+    private static final Logger logger = LogManager.getLogger(AbstractDataflowAnalysis.class);
+
+    private final DataflowSolver<Node, Fact> solver;
+
+    /**
+     * Cache of the results, which is enabled by option "cache-dir",
+     * and is null otherwise.
+     */
+    @Nullable
+    private final ResultCache<DataflowResult<Node, Fact>> cache;
+
+    /**
+     * Whether defer solving this analysis to the pipeline of each method,
+     * where it is solved along with the other pipelined analyses,
+     * see {@link DataflowPipeline}.
+     */
+    private final boolean pipelined;
 
     protected AbstractDataflowAnalysis(AnalysisConfig config) {
         super(config);
-        solver = Solver.makeSolver(this);
+        String kind = getOptions().getString("solver");
+        // storing facts only at block boundaries implies solving on blocks
+        String storage = getOptions().getString("storage");
+        boolean block = getOptions().getBooleanOrDefault("block", false) || storage != null;
+        Function<DataflowAnalysis<Node, Fact>, DataflowSolver<Node, Fact>> factory = block ?
+                analysis -> makeBlockSolver(analysis, kind, storage) :
+                analysis -> Solver.makeSolver(analysis, kind);
+        // dumping statistics implies collecting them
+        String statsFile = getOptions().getString("stats-file");
+        solver = getOptions().getBooleanOrDefault("stats", false) || statsFile != null ?
+                Solver.makeInstrumentedSolver(this, factory, statsFile) :
+                factory.apply(this);
+        String cacheDir = getOptions().getString("cache-dir");
+        if (cacheDir != null) {
+            ResultCache.Codec<Fact> factCodec = getFactCodec();
+            if (factCodec == null) {
+                throw new ConfigException(getId() + " does not support result cache");
+            }
+            cache = new ResultCache<>(cacheDir, getId(), getOptions(),
+                    new ResultCodec(factCodec));
+        } else {
+            cache = null;
+        }
+        pipelined = getOptions().getBooleanOrDefault("pipeline", false);
+        if (pipelined && cache != null) {
+            logger.warn("Option pipeline of {} is ignored as cache-dir is set", getId());
+        }
+    }
+
+    /**
+     * Creates a solver which solves given analysis on basic blocks.
+     * This is only applicable to the analyses on {@code CFG<Stmt>},
+     * which is the case for all intraprocedural analyses.
+     */
+    @SuppressWarnings("unchecked")
+    private static <Node, Fact> DataflowSolver<Node, Fact> makeBlockSolver(
+            DataflowAnalysis<Node, Fact> analysis, String kind, String storage) {
+        return (DataflowSolver<Node, Fact>) Solver.makeBlockSolver(
+                (DataflowAnalysis<Stmt, Fact>) analysis, kind, storage);
     }
 
+    /**
+     * If the result cache is enabled, the analysis is not pipelined,
+     * as the cache stores the result right after solving it.
+     */
     @Override
     public DataflowResult<Node, Fact> analyze(IR ir) {
         CFG<Node> cfg = ir.getResult(CFGBuilder.ID);
-        return solver.solve(cfg);
+        if (cache != null) {
+            return cache.get(ir, () -> solver.solve(cfg));
+        }
+        return pipelined ? addToPipeline(ir) : solver.solve(cfg);
+    }
+
+    /**
+     * Adds this analysis to the pipeline of given IR. This is only
+     * applicable to the analyses on {@code CFG<Stmt>}.
+     */
+    @SuppressWarnings("unchecked")
+    private DataflowResult<Node, Fact> addToPipeline(IR ir) {
+        return (DataflowResult<Node, Fact>) DataflowPipeline.of(ir).add(
+                (AbstractDataflowAnalysis<Stmt, Fact>) this);
+    }
+
+    /**
+     * @return the codec of the facts in the result cache (option "cache-dir"),
+     * or null if this analysis does not support the result cache.
+     * The analyses which support the result cache override this method.
+     * This is called by the constructor, thus the codec must not depend on
+     * the state of the subclasses until it is used.
+     */
+    @Nullable
+    protected ResultCache.Codec<Fact> getFactCodec() {
+        return null;
+    }
+
+    /**
+     * @return the solver used by this analysis.
+     */
+    public DataflowSolver<Node, Fact> getSolver() {
+        return solver;
     }
 
     /**
@@ -61,4 +163,65 @@ public abstract class AbstractDataflowAnalysis<Node, Fact>
     public Fact transferEdge(Edge<Node> edge, Fact nodeFact) {
         throw new UnsupportedOperationException();
     }
+
+    /**
+     * By default, a data-flow analysis does not need widening, e.g.,
+     * when its lattice has finite height.
+     */
+    @Override
+    public boolean needWidening(Node head) {
+        return false;
+    }
+
+    @Override
+    public void widen(Node head, Fact previous, Fact fact) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Serializes the facts of all nodes of a result. This is only
+     * applicable to the analyses on {@code CFG<Stmt>}.
+     */
+    private class ResultCodec implements ResultCache.Codec<DataflowResult<Node, Fact>> {
+
+        private final ResultCache.Codec<Fact> factCodec;
+
+        private ResultCodec(ResultCache.Codec<Fact> factCodec) {
+            this.factCodec = factCodec;
+        }
+
+        @Override
+        public void write(DataflowResult<Node, Fact> result, IR ir, DataOutput out)
+                throws IOException {
+            CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+            out.writeInt(cfg.getNumberOfNodes());
+            for (Stmt node : cfg) {
+                out.writeInt(ResultCache.getIndex(cfg, node));
+                factCodec.write(result.getInFact(toNode(node)), ir, out);
+                factCodec.write(result.getOutFact(toNode(node)), ir, out);
+            }
+        }
+
+        @Override
+        public DataflowResult<Node, Fact> read(IR ir, DataInput in) throws IOException {
+            CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+            DataflowResult<Node, Fact> result = new DataflowResult<>();
+            for (int i = in.readInt(); i > 0; --i) {
+                Node node = toNode(ResultCache.getNode(cfg, in.readInt()));
+                result.setInFact(node, factCodec.read(ir, in));
+                result.setOutFact(node, factCodec.read(ir, in));
+            }
+            return result;
+        }
+
+        @Override
+        public int getVersion() {
+            return factCodec.getVersion();
+        }
+
+        @SuppressWarnings("unchecked")
+        private Node toNode(Stmt stmt) {
+            return (Node) stmt;
+        }
+    }
 }
@@ -73,4 +73,24 @@ public interface DataflowAnalysis<Node, Fact> {
      * Edge Transfer function for this analysis.
      */
     Fact transferEdge(Edge<Node> edge, Fact nodeFact);
+
+    /**
+     * @return true if this analysis needs to perform widening at given
+     * node, otherwise false. This is only queried by the solvers which
+     * are aware of loops, for the heads of the loops.
+     */
+    boolean needWidening(Node head);
+
+    /**
+     * Widening operator of this analysis, which is applied at the heads of
+     * loops to accelerate (or ensure) convergence: it widens the new fact
+     * (i.e., the result of meeting the facts flowing into the head) with
+     * the previous one, and stores the result in the new fact.
+     *
+     * @param head     the loop head
+     * @param previous the flowing-in (out) fact of the head in forward
+     *                 (backward) analysis before the meet
+     * @param fact     the flowing-in (out) fact after the meet
+     */
+    void widen(Node head, Fact previous, Fact fact);
 }
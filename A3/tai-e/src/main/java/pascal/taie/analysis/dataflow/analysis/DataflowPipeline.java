@@ -0,0 +1,166 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.analysis;
+
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.solver.SolverStats;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.stmt.Stmt;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Defers the solving of the data-flow analyses of a method, so that they
+ * are solved back to back on the method, which is enabled by option
+ * "pipeline" of the analyses.
+ * <p>
+ * As the analyses of a plan are run one after another over all methods,
+ * each pipelined analysis only registers itself in the pipeline of the IR
+ * (stored in the IR), and returns a result which is solved on its first
+ * access, e.g., by dead code detection or by the result processor.
+ * At that time, all analyses registered in the pipeline are solved
+ * on the method one after another, while its IR and CFG are still hot,
+ * where the forward analyses are solved before the backward ones.
+ * Each analysis is solved by its own solver in a traversal of its own,
+ * i.e., the analyses are not fused into a single traversal over the
+ * product of their lattices, thus the options about the solver
+ * (e.g., "solver" and "block") take effect as usual.
+ */
+public class DataflowPipeline {
+
+    public static final String ID = "dataflow-pipeline";
+
+    private final CFG<Stmt> cfg;
+
+    private final List<PendingResult<?>> pending = new ArrayList<>();
+
+    private DataflowPipeline(CFG<Stmt> cfg) {
+        this.cfg = cfg;
+    }
+
+    /**
+     * @return the pipeline of given IR.
+     */
+    static DataflowPipeline of(IR ir) {
+        return ir.getResult(ID, () -> new DataflowPipeline(ir.getResult(CFGBuilder.ID)));
+    }
+
+    /**
+     * Registers given analysis in this pipeline.
+     *
+     * @return the result of the analysis, which is solved on demand.
+     */
+    synchronized <Fact> DataflowResult<Stmt, Fact> add(
+            AbstractDataflowAnalysis<Stmt, Fact> analysis) {
+        PendingResult<Fact> result = new PendingResult<>(this, analysis);
+        pending.add(result);
+        return result;
+    }
+
+    /**
+     * Solves all analyses registered in this pipeline.
+     */
+    private synchronized void solve() {
+        List<PendingResult<?>> forward = new ArrayList<>();
+        List<PendingResult<?>> backward = new ArrayList<>();
+        for (PendingResult<?> result : pending) {
+            (result.analysis.isForward() ? forward : backward).add(result);
+        }
+        pending.clear();
+        solve(forward);
+        solve(backward);
+    }
+
+    private void solve(List<PendingResult<?>> results) {
+        results.forEach(result -> result.solve(cfg));
+    }
+
+    /**
+     * Result of a pipelined analysis, which triggers the pipeline
+     * on the first access, and then delegates to the solved result.
+     */
+    private static class PendingResult<Fact> extends DataflowResult<Stmt, Fact> {
+
+        private final DataflowPipeline pipeline;
+
+        private final AbstractDataflowAnalysis<Stmt, Fact> analysis;
+
+        @Nullable
+        private volatile DataflowResult<Stmt, Fact> result;
+
+        private PendingResult(DataflowPipeline pipeline,
+                              AbstractDataflowAnalysis<Stmt, Fact> analysis) {
+            this.pipeline = pipeline;
+            this.analysis = analysis;
+        }
+
+        private void solve(CFG<Stmt> cfg) {
+            result = analysis.getSolver().solve(cfg);
+        }
+
+        private DataflowResult<Stmt, Fact> get() {
+            DataflowResult<Stmt, Fact> r = result;
+            if (r == null) {
+                pipeline.solve();
+                r = result;
+            }
+            return r;
+        }
+
+        @Override
+        public Fact getInFact(Stmt node) {
+            return get().getInFact(node);
+        }
+
+        @Override
+        public void setInFact(Stmt node, Fact fact) {
+            get().setInFact(node, fact);
+        }
+
+        @Override
+        public Fact getOutFact(Stmt node) {
+            return get().getOutFact(node);
+        }
+
+        @Override
+        public void setOutFact(Stmt node, Fact fact) {
+            get().setOutFact(node, fact);
+        }
+
+        @Override
+        public Collection<SolverStats> getStats() {
+            return get().getStats();
+        }
+
+        @Override
+        public void addStats(SolverStats stats) {
+            get().addStats(stats);
+        }
+    }
+}
@@ -23,8 +23,12 @@
 package pascal.taie.analysis.dataflow.analysis;
 
 import pascal.taie.analysis.MethodAnalysis;
+import pascal.taie.analysis.ResultCache;
 import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
 import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.analysis.dataflow.analysis.constprop.ConstantQuery;
+import pascal.taie.analysis.dataflow.analysis.constprop.Evaluators;
+import pascal.taie.analysis.dataflow.analysis.constprop.SparseCPResult;
 import pascal.taie.analysis.dataflow.analysis.constprop.Value;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
 import pascal.taie.analysis.dataflow.fact.SetFact;
@@ -37,18 +41,63 @@ import pascal.taie.ir.exp.*;
 import pascal.taie.ir.stmt.*;
 import pascal.taie.util.collection.Pair;
 
+import javax.annotation.Nullable;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.*;
+import java.util.function.BiFunction;
 
 public class DeadCodeDetection extends MethodAnalysis {
 
     public static final String ID = "deadcode";
 
+    /**
+     * Whether query the constant values of the branch conditions on demand
+     * (see {@link ConstantQuery}), instead of reading them from the result
+     * of constant propagation. This is also the case if the result of
+     * constant propagation is absent.
+     */
+    private final boolean queryConstants;
+
+    /**
+     * Constant propagation for the queries, whose result is not used.
+     * It is created on the first query, as the queries are not needed
+     * if the result of constant propagation is available.
+     */
+    @Nullable
+    private ConstantPropagation constantPropagation;
+
+    /**
+     * Cache of the results, which is enabled by option "cache-dir",
+     * and is null otherwise.
+     */
+    @Nullable
+    private final ResultCache<Set<Stmt>> cache;
+
     public DeadCodeDetection(AnalysisConfig config) {
         super(config);
+        queryConstants = "query".equals(getOptions().getString("constants"));
+        String cacheDir = getOptions().getString("cache-dir");
+        cache = cacheDir != null ?
+                new ResultCache<>(cacheDir, ID, getOptions(), new DeadCodeCodec()) :
+                null;
     }
 
     @Override
     public Set<Stmt> analyze(IR ir) {
+        if (cache == null) {
+            return detect(ir);
+        }
+        // the cached result is valid only if the results of
+        // the analyses it depends on are unchanged
+        return queryConstants ?
+                cache.get(ir, () -> detect(ir), LiveVariableAnalysis.ID) :
+                cache.get(ir, () -> detect(ir),
+                        ConstantPropagation.ID, LiveVariableAnalysis.ID);
+    }
+
+    private Set<Stmt> detect(IR ir) {
         // obtain CFG
         CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
         // obtain result of constant propagation
@@ -57,135 +106,133 @@ public class DeadCodeDetection extends MethodAnalysis {
         // obtain result of live variable analysis
         DataflowResult<Stmt, SetFact<Var>> liveVars =
                 ir.getResult(LiveVariableAnalysis.ID);
+        // statements are indexed from 0 to the number of statements - 1,
+        // except the entry and exit of CFG, which are never dead code
+        int size = ir.getStmts().size();
+        BitSet dead = new BitSet(size);
+        if (constants instanceof SparseCPResult sparseConstants) {
+            // sparse constant propagation has already figured out
+            // the executable statements
+            for (Stmt stmt : ir) {
+                if (!sparseConstants.isExecutable(stmt) ||
+                        isDeadAssignment(stmt, liveVars)) {
+                    dead.set(stmt.getIndex());
+                }
+            }
+        } else if (queryConstants || constants == null) {
+            ConstantQuery query = new ConstantQuery(getConstantPropagation(), cfg);
+            traverse(cfg, size, query::evaluateAt, liveVars, dead);
+        } else {
+            // the conditions are evaluated by the precompiled evaluators
+            // of their statements
+            Evaluators evaluators = Evaluators.of(ir);
+            traverse(cfg, size, (exp, stmt) -> evaluators.get(stmt)
+                    .evaluate(constants.getInFact(stmt)), liveVars, dead);
+        }
         // keep statements (dead code) sorted in the resulting set
-        Set<Stmt> deadCode = new TreeSet<>(Comparator.comparing(Stmt::getIndex));
-        // TODO - finish me
-        // Your task is to recognize dead code in ir and add it to deadCode
-        unreachable(deadCode, cfg, constants);
-        deadAssignment(deadCode, cfg, liveVars);
+        Set<Stmt> deadCode = new LinkedHashSet<>();
+        for (int i = dead.nextSetBit(0); i >= 0; i = dead.nextSetBit(i + 1)) {
+            deadCode.add(ir.getStmt(i));
+        }
         return deadCode;
     }
 
-    private static void unreachable(Set<Stmt> res, CFG<Stmt> cfg, DataflowResult<Stmt, CPFact> constants) {
-        Set<Stmt> dead = new TreeSet<>(Comparator.comparing(Stmt::getIndex));
-        for (Stmt stmt : cfg) {
-            if (stmt != cfg.getEntry() && stmt != cfg.getExit()) {
-                dead.add(stmt); // init all
-            }
+    private synchronized ConstantPropagation getConstantPropagation() {
+        if (constantPropagation == null) {
+            constantPropagation = new ConstantPropagation(
+                    new AnalysisConfig(ConstantPropagation.ID));
         }
+        return constantPropagation;
+    }
 
-        LinkedList<Stmt> list = new LinkedList<>();
-        Stmt entry = cfg.getEntry();
-        list.addLast(entry);
-        dead.remove(entry);
-
-        while (!list.isEmpty()) {
-            Stmt stmt = list.pollFirst();
-
-            if (stmt instanceof If) {
-                If ifStmt = (If) stmt;
-                CPFact inFact = constants.getInFact(ifStmt);
-                Value value = ConstantPropagation.evaluate(ifStmt.getCondition(), inFact);
-
-                boolean cond;
+    /**
+     * Traverses the statements reachable from the entry of CFG via the
+     * feasible branches, and marks the dead assignments among them
+     * at the same time. The statements which are not reached are
+     * unreachable code, and are marked after the traversal.
+     *
+     * @param constants evaluates given expression before given statement
+     */
+    private static void traverse(CFG<Stmt> cfg, int size,
+                                 BiFunction<Exp, Stmt, Value> constants,
+                                 DataflowResult<Stmt, SetFact<Var>> liveVars,
+                                 BitSet dead) {
+        BitSet reached = new BitSet(size);
+        // each statement is enqueued at most once
+        Stmt[] queue = new Stmt[size];
+        int head = 0, tail = 0;
+        for (Stmt succ : cfg.getSuccsOf(cfg.getEntry())) {
+            tail = reach(succ, cfg, reached, queue, tail);
+        }
+        while (head < tail) {
+            Stmt stmt = queue[head++];
+            if (isDeadAssignment(stmt, liveVars)) {
+                dead.set(stmt.getIndex());
+            }
+            if (stmt instanceof If ifStmt) {
+                Value value = constants.apply(ifStmt.getCondition(), ifStmt);
                 if (value.isConstant()) {
-                    if (value.getConstant() == 1) {
-                        cond = true;
-                    } else {
-                        cond = false;
-                    }
-
+                    Edge.Kind feasible = value.getConstant() == 1 ?
+                            Edge.Kind.IF_TRUE : Edge.Kind.IF_FALSE;
                     for (Edge<Stmt> edge : cfg.getOutEdgesOf(ifStmt)) {
-                        if ((cond && edge.getKind() == Edge.Kind.IF_TRUE)
-                                || (!cond && edge.getKind() == Edge.Kind.IF_FALSE)) {
-                            Stmt succ = edge.getTarget();
-                            if (dead.contains(succ)) {
-                                list.addLast(succ);
-                                dead.remove(succ);
-                            }
+                        if (edge.getKind() == feasible) {
+                            tail = reach(edge.getTarget(), cfg, reached, queue, tail);
                         }
                     }
                     continue;
-                } else {
-                    // fall through
                 }
-            }
-
-            if (stmt instanceof SwitchStmt) {
-                SwitchStmt switchStmt = (SwitchStmt) stmt;
-                CPFact inFact = constants.getInFact(switchStmt);
-                Value value = ConstantPropagation.evaluate(switchStmt.getVar(), inFact);
-
+            } else if (stmt instanceof SwitchStmt switchStmt) {
+                Value value = constants.apply(switchStmt.getVar(), switchStmt);
                 if (value.isConstant()) {
                     int val = value.getConstant();
                     boolean hit = false;
                     for (Pair<Integer, Stmt> caseTarget : switchStmt.getCaseTargets()) {
                         if (val == caseTarget.first()) {
                             hit = true;
-                            Stmt target = caseTarget.second();
-
                             // no need to consider fall through
-                            if (dead.contains(target)) {
-                                list.addLast(target);
-                                dead.remove(target);
-                            }
-
+                            tail = reach(caseTarget.second(), cfg, reached, queue, tail);
                         }
                     }
-
                     if (!hit) {
-                        Stmt target = switchStmt.getDefaultTarget();
-                        if (dead.contains(target)) {
-                            list.addLast(target);
-                            dead.remove(target);
-                        }
+                        tail = reach(switchStmt.getDefaultTarget(), cfg, reached, queue, tail);
                     }
-
                     continue;
-                } else {
-                    // fall through
                 }
             }
-
             for (Stmt succ : cfg.getSuccsOf(stmt)) {
-                if (dead.contains(succ)) {
-                    list.addLast(succ);
-                    dead.remove(succ);
-                }
+                tail = reach(succ, cfg, reached, queue, tail);
             }
         }
-
-        res.addAll(dead);
+        // unreached statements are unreachable code
+        reached.flip(0, size);
+        dead.or(reached);
     }
 
-    private static void deadAssignment(Set<Stmt> res, CFG<Stmt> cfg, DataflowResult<Stmt, SetFact<Var>> liveVars) {
-        Set<Stmt> dead = new TreeSet<>(Comparator.comparing(Stmt::getIndex));
-        for (Stmt stmt : cfg) {
-            if (stmt != cfg.getEntry() && stmt != cfg.getExit() && !res.contains(stmt)) {
-                dead.add(stmt); // init all without unreachable
-            }
-        }
-
-        Set<Stmt> list = new TreeSet<>(Comparator.comparing(Stmt::getIndex));
-
-        for (Stmt stmt : dead) {
-            if (stmt instanceof AssignStmt) {
-                AssignStmt assignStmt = (AssignStmt) stmt;
-                SetFact<Var> outFact = liveVars.getOutFact(stmt);
-
-                Optional<LValue> _def = stmt.getDef();
-                if (_def.isPresent()) {
-                    if (_def.get() instanceof Var) {
-                        Var def = (Var) _def.get();
-                        if (!outFact.contains(def) && hasNoSideEffect(assignStmt.getRValue())) {
-                            list.add(stmt);
-                        }
-                    }
-                }
-            }
+    /**
+     * Marks given statement as reached, and enqueues it if it has not
+     * been reached before.
+     *
+     * @return the new tail of the queue.
+     */
+    private static int reach(Stmt stmt, CFG<Stmt> cfg, BitSet reached,
+                             Stmt[] queue, int tail) {
+        if (!cfg.isExit(stmt) && !reached.get(stmt.getIndex())) {
+            reached.set(stmt.getIndex());
+            queue[tail++] = stmt;
         }
+        return tail;
+    }
 
-        res.addAll(list);
+    /**
+     * @return true if given statement is an assignment whose result
+     * is never used and which has no side effect, otherwise false.
+     */
+    private static boolean isDeadAssignment(
+            Stmt stmt, DataflowResult<Stmt, SetFact<Var>> liveVars) {
+        return stmt instanceof AssignStmt<?, ?> assignStmt &&
+                assignStmt.getLValue() instanceof Var def &&
+                !liveVars.getOutFact(stmt).contains(def) &&
+                hasNoSideEffect(assignStmt.getRValue());
     }
 
     /**
@@ -210,4 +257,30 @@ public class DeadCodeDetection extends MethodAnalysis {
         }
         return true;
     }
-}
\ No newline at end of file
+
+    private static class DeadCodeCodec implements ResultCache.Codec<Set<Stmt>> {
+
+        @Override
+        public int getVersion() {
+            return 1;
+        }
+
+        @Override
+        public void write(Set<Stmt> deadCode, IR ir, DataOutput out)
+                throws IOException {
+            out.writeInt(deadCode.size());
+            for (Stmt stmt : deadCode) {
+                out.writeInt(stmt.getIndex());
+            }
+        }
+
+        @Override
+        public Set<Stmt> read(IR ir, DataInput in) throws IOException {
+            Set<Stmt> deadCode = new LinkedHashSet<>();
+            for (int i = in.readInt(); i > 0; --i) {
+                deadCode.add(ir.getStmt(in.readInt()));
+            }
+            return deadCode;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.analysis;
+
+import pascal.taie.analysis.dataflow.fact.SetFact;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.util.List;
+
+/**
+ * Template class for gen/kill (bit-vector style) data-flow analyses,
+ * whose transfer function of each statement is of the form
+ * {@code gen ∪ (fact − kill)}, e.g., live variable analysis.
+ * <p>
+ * As the composition of such functions is again a gen/kill function,
+ * the transfer function of a sequence of statements (e.g., a basic block)
+ * can be summarized once by {@link #summarize(List)}, and then applied
+ * as a whole in one step, see
+ * {@link pascal.taie.analysis.dataflow.solver.Solver#makeBlockSolver}.
+ *
+ * @param <E> type of elements in the data-flow facts
+ */
+public abstract class GenKillAnalysis<E>
+        extends AbstractDataflowAnalysis<Stmt, SetFact<E>> {
+
+    protected GenKillAnalysis(AnalysisConfig config) {
+        super(config);
+    }
+
+    /**
+     * @return a new empty fact, which is used to hold gen and kill sets.
+     */
+    protected abstract SetFact<E> newEmptyFact();
+
+    /**
+     * Computes gen and kill sets of given statement.
+     *
+     * @param gen  the fact to which the generated elements are added
+     * @param kill the fact to which the killed elements are added
+     */
+    protected abstract void computeGenKill(Stmt stmt, SetFact<E> gen, SetFact<E> kill);
+
+    @Override
+    public boolean transferNode(Stmt stmt, SetFact<E> in, SetFact<E> out) {
+        SetFact<E> gen = newEmptyFact();
+        SetFact<E> kill = newEmptyFact();
+        computeGenKill(stmt, gen, kill);
+        return isForward() ?
+                out.setToGenKill(gen, in, kill) :
+                in.setToGenKill(gen, out, kill);
+    }
+
+    /**
+     * Summarizes the transfer functions of given statements, which are
+     * executed in the given order, into a single gen/kill function.
+     * For backward analysis, the statements are composed in reverse order,
+     * i.e., the order in which the facts flow through them.
+     */
+    public Summary<E> summarize(List<Stmt> stmts) {
+        SetFact<E> gen = newEmptyFact();
+        SetFact<E> kill = newEmptyFact();
+        SetFact<E> stmtGen = newEmptyFact();
+        SetFact<E> stmtKill = newEmptyFact();
+        int n = stmts.size();
+        for (int i = 0; i < n; ++i) {
+            Stmt stmt = stmts.get(isForward() ? i : n - 1 - i);
+            stmtGen.clear();
+            stmtKill.clear();
+            computeGenKill(stmt, stmtGen, stmtKill);
+            // g' ∪ ((g ∪ (x − k)) − k') = (g' ∪ (g − k')) ∪ (x − (k ∪ k'))
+            gen.removeAll(stmtKill);
+            gen.union(stmtGen);
+            kill.union(stmtKill);
+        }
+        return new Summary<>(gen, kill);
+    }
+
+    /**
+     * Gen/kill function of a sequence of statements.
+     */
+    public static class Summary<E> {
+
+        private final SetFact<E> gen;
+
+        private final SetFact<E> kill;
+
+        private Summary(SetFact<E> gen, SetFact<E> kill) {
+            this.gen = gen;
+            this.kill = kill;
+        }
+
+        /**
+         * Applies this function to source fact, and sets the result
+         * to target fact.
+         *
+         * @return true if target fact changed as a result of the call,
+         * otherwise false.
+         */
+        public boolean apply(SetFact<E> source, SetFact<E> target) {
+            return target.setToGenKill(gen, source, kill);
+        }
+    }
+}
@@ -22,27 +22,44 @@
 
 package pascal.taie.analysis.dataflow.analysis;
 
+import pascal.taie.analysis.ResultCache;
+import pascal.taie.analysis.dataflow.fact.BitSetFact;
 import pascal.taie.analysis.dataflow.fact.SetFact;
 import pascal.taie.analysis.graph.cfg.CFG;
 import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.IR;
 import pascal.taie.ir.exp.LValue;
 import pascal.taie.ir.exp.RValue;
 import pascal.taie.ir.exp.Var;
 import pascal.taie.ir.stmt.Stmt;
 
-import java.util.List;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.Optional;
 
 /**
  * Implementation of classic live variable analysis.
  */
-public class LiveVariableAnalysis extends
-        AbstractDataflowAnalysis<Stmt, SetFact<Var>> {
+public class LiveVariableAnalysis extends GenKillAnalysis<Var> {
 
     public static final String ID = "livevar";
 
+    /**
+     * Whether represent the facts as bit vectors ({@link BitSetFact}),
+     * which is enabled by option "fact: bitset", or as hash-based sets
+     * ({@link SetFact}) by default.
+     */
+    private final boolean useBitSet;
+
     public LiveVariableAnalysis(AnalysisConfig config) {
         super(config);
+        useBitSet = "bitset".equals(getOptions().getString("fact"));
+    }
+
+    @Override
+    protected SetFact<Var> newEmptyFact() {
+        return useBitSet ? new BitSetFact() : new SetFact<>();
     }
 
     @Override
@@ -54,15 +71,13 @@ public class LiveVariableAnalysis extends
     public SetFact<Var> newBoundaryFact(CFG<Stmt> cfg) {
         // TODO - finish me
         // cfg unused
-        SetFact<Var> fact = new SetFact<>();
-        return fact;
+        return newEmptyFact();
     }
 
     @Override
     public SetFact<Var> newInitialFact() {
         // TODO - finish me
-        SetFact<Var> fact = new SetFact<>();
-        return fact;
+        return newEmptyFact();
     }
 
     @Override
@@ -72,32 +87,45 @@ public class LiveVariableAnalysis extends
     }
 
     @Override
-    public boolean transferNode(Stmt stmt, SetFact<Var> in, SetFact<Var> out) {
-        // TODO - finish me
-        Optional<LValue> _def = stmt.getDef();
-        Var def = null;
-        if (_def.isPresent()) {
-            if (_def.get() instanceof Var) {
-                def = (Var) _def.get();
+    protected void computeGenKill(Stmt stmt, SetFact<Var> gen, SetFact<Var> kill) {
+        Optional<LValue> def = stmt.getDef();
+        if (def.isPresent() && def.get() instanceof Var var) {
+            kill.add(var);
+        }
+        for (RValue use : stmt.getUses()) {
+            if (use instanceof Var var) {
+                gen.add(var);
             }
         }
+    }
 
-        List<RValue> _uses = stmt.getUses();
-        SetFact<Var> uses = new SetFact<>();
-        for (RValue rValue : _uses) {
-            if (rValue instanceof Var) {
-                uses.add((Var) rValue);
-            }
+    @Override
+    protected ResultCache.Codec<SetFact<Var>> getFactCodec() {
+        return new LiveVarsCodec();
+    }
+
+    private class LiveVarsCodec implements ResultCache.Codec<SetFact<Var>> {
+
+        @Override
+        public int getVersion() {
+            return 1;
         }
 
-        int prev_size = in.size();
-        in.union(out);
-        if (def != null) {
-            in.remove(def);
+        @Override
+        public void write(SetFact<Var> fact, IR ir, DataOutput out) throws IOException {
+            out.writeInt(fact.size());
+            for (Var var : fact.stream().toList()) {
+                out.writeInt(var.getIndex());
+            }
         }
-        in.union(uses);
-        int curr_size = in.size();
 
-        return curr_size != prev_size;
+        @Override
+        public SetFact<Var> read(IR ir, DataInput in) throws IOException {
+            SetFact<Var> fact = newInitialFact();
+            for (int i = in.readInt(); i > 0; --i) {
+                fact.add(ir.getVar(in.readInt()));
+            }
+            return fact;
+        }
     }
 }
@@ -20,13 +20,25 @@
  * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
  */
 
+
 package pascal.taie.analysis.dataflow.analysis.constprop;
 
 import pascal.taie.analysis.dataflow.fact.MapFact;
+import pascal.taie.analysis.dataflow.fact.PersistentMap;
 import pascal.taie.ir.exp.Var;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.AnalysisException;
 
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.IntFunction;
 
 /**
  * Represents data facts of constant propagation, which maps variables
@@ -37,6 +49,19 @@ import java.util.Map;
  * it represents that the lattice value of the variable is UNDEF;
  * moreover, if we set the lattice value of a variable to UNDEF,
  * it effectively removes the variable from the CPFact.
+ * <p>
+ * By default, a CPFact is backed by a hash-based map. Alternatively,
+ * a CPFact can be dense (see {@link #newDenseFact()}): it packs the lattice
+ * value of each variable into a {@code long} of an array indexed by
+ * {@link Var#getIndex()}, so that copying and comparing facts do not walk
+ * (or allocate) any map entries. As variable indexes are only unique within
+ * a method, all variables of a dense fact must belong to the same method.
+ * <p>
+ * Alternatively, a CPFact can be backed by a {@link PersistentMap}
+ * (see {@link #newPersistentFact()}), which is copied in constant time
+ * by sharing its structure with the copy. This suits the facts which
+ * are copied much more often than updated, e.g., the ones flowing
+ * along the edges of an ICFG.
  */
 public class CPFact extends MapFact<Var, Value> {
 
@@ -48,6 +73,35 @@ public class CPFact extends MapFact<Var, Value> {
         super(map);
     }
 
+    private CPFact(DenseMap map) {
+        super(() -> new DenseMap(map));
+    }
+
+    private CPFact(PersistentMap<Var, Value> map) {
+        super(() -> new PersistentMap<>(map));
+    }
+
+    /**
+     * @return a new empty CPFact backed by a hash-based map.
+     */
+    public static CPFact newHybridFact() {
+        return new CPFact(Collections.emptyMap());
+    }
+
+    /**
+     * @return a new empty CPFact backed by a dense array.
+     */
+    public static CPFact newDenseFact() {
+        return new CPFact(new DenseMap());
+    }
+
+    /**
+     * @return a new empty CPFact backed by a persistent map.
+     */
+    public static CPFact newPersistentFact() {
+        return new CPFact(new PersistentMap<>());
+    }
+
     /**
      * @return the value of given variable in this fact,
      * or UNDEF the variable is absent in this fact.
@@ -57,6 +111,18 @@ public class CPFact extends MapFact<Var, Value> {
         return map.getOrDefault(key, Value.getUndef());
     }
 
+    /**
+     * @return the value of given variable in this fact, where the index
+     * of the variable (i.e., {@link Var#getIndex()}) is resolved by the
+     * caller. The value is read from the slot of the index directly if
+     * this fact is dense, in which case the variable must belong to the
+     * method of this fact.
+     */
+    Value get(Var key, int index) {
+        return map instanceof DenseMap denseMap ?
+                denseMap.getAt(index) : get(key);
+    }
+
     @Override
     public boolean update(Var key, Value value) {
         if (value.isUndef()) {
@@ -69,8 +135,388 @@ public class CPFact extends MapFact<Var, Value> {
         }
     }
 
+    @Override
+    public boolean copyFrom(MapFact<Var, Value> fact) {
+        if (map instanceof DenseMap target
+                && fact instanceof CPFact cpFact
+                && cpFact.map instanceof DenseMap source) {
+            if (isCopiedFrom(fact, null)) {
+                return false;
+            }
+            boolean changed = target.copyFrom(source);
+            if (changed) {
+                markChanged();
+            }
+            recordCopy(fact, null);
+            return changed;
+        }
+        return super.copyFrom(fact);
+    }
+
+    /**
+     * Copies the content from given fact to this fact, except the value
+     * of given variable, which is left unchanged. Together with
+     * {@link #update(Var, Value)} on that variable, this applies the
+     * effect of a definition in place, so that a transfer function can
+     * detect changes of its out fact without copying it. If neither fact
+     * has changed since the last such copy, this returns immediately.
+     *
+     * @return true if this fact changed as a result of the call, otherwise false.
+     */
+    public boolean copyFromExcept(CPFact fact, Var except) {
+        if (isCopiedFrom(fact, except)) {
+            return false;
+        }
+        boolean changed = false;
+        if (map instanceof DenseMap target
+                && fact.map instanceof DenseMap source) {
+            if (target.copyFrom(source, except)) {
+                markChanged();
+                changed = true;
+            }
+        } else {
+            for (Map.Entry<Var, Value> entry : fact.map.entrySet()) {
+                if (!entry.getKey().equals(except)) {
+                    changed |= update(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        recordCopy(fact, except);
+        return changed;
+    }
+
+    /**
+     * @return true if this fact uses the dense representation.
+     */
+    boolean isDense() {
+        return map instanceof DenseMap;
+    }
+
+    /**
+     * Meets given fact into this fact slot by slot.
+     * Both facts must be dense, see {@link #isDense()}.
+     */
+    void meetDense(CPFact fact) {
+        if (((DenseMap) map).meet((DenseMap) fact.map)) {
+            markChanged();
+        }
+    }
+
     @Override
     public CPFact copy() {
-        return new CPFact(this.map);
+        if (map instanceof DenseMap denseMap) {
+            return new CPFact(denseMap);
+        } else if (map instanceof PersistentMap<Var, Value> persistent) {
+            return new CPFact(persistent);
+        } else {
+            return new CPFact(this.map);
+        }
+    }
+
+    /**
+     * Map from variables to lattice values, where the value of each
+     * variable is packed into a {@code long} slot indexed by
+     * {@link Var#getIndex()}: the high 32 bits hold the kind of the value,
+     * and the low 32 bits hold the constant (if any).
+     * A zero slot represents UNDEF, i.e., absence of the variable.
+     */
+    private static class DenseMap extends AbstractMap<Var, Value> {
+
+        private static final long[] EMPTY_SLOTS = {};
+
+        private static final long CONSTANT = 1L << 32;
+
+        private static final long NAC = 2L << 32;
+
+        private long[] slots;
+
+        /**
+         * The method which the variables in this map belong to,
+         * and its variables which are used to map the slots back
+         * to variables. Both are null until the first variable is put.
+         */
+        private JMethod method;
+
+        private List<Var> vars;
+
+        private DenseMap() {
+            slots = EMPTY_SLOTS;
+        }
+
+        private DenseMap(DenseMap other) {
+            slots = other.slots.length == 0 ?
+                    EMPTY_SLOTS : other.slots.clone();
+            method = other.method;
+            vars = other.vars;
+        }
+
+        private static long encode(Value value) {
+            if (value.isConstant()) {
+                return CONSTANT | (value.getConstant() & 0xFFFFFFFFL);
+            } else if (value.isNAC()) {
+                return NAC;
+            } else {
+                return 0;
+            }
+        }
+
+        private static Value decode(long slot) {
+            if (slot == NAC) {
+                return Value.getNAC();
+            } else if (slot != 0) {
+                return Value.makeConstant((int) slot);
+            } else {
+                return null;
+            }
+        }
+
+        private long getSlot(Object key) {
+            if (key instanceof Var var && var.getMethod() == method) {
+                int i = var.getIndex();
+                return i < slots.length ? slots[i] : 0;
+            }
+            return 0;
+        }
+
+        private void checkMethod(Var var) {
+            if (method == null) {
+                method = var.getMethod();
+                vars = method.getIR().getVars();
+            } else if (var.getMethod() != method) {
+                throw new AnalysisException("Dense CPFact of " + method +
+                        " cannot hold variable " + var + " of " + var.getMethod());
+            }
+        }
+
+        private void checkMethod(DenseMap other) {
+            if (method == null) {
+                method = other.method;
+                vars = other.vars;
+            } else if (other.method != null && other.method != method) {
+                throw new AnalysisException("Cannot merge dense CPFact of " +
+                        other.method + " into the one of " + method);
+            }
+        }
+
+        /**
+         * Copies all (non-UNDEF) values of other map to this map.
+         *
+         * @return true if this map changed as a result of the call.
+         */
+        private boolean copyFrom(DenseMap other) {
+            return copyFrom(other, null);
+        }
+
+        /**
+         * Copies all (non-UNDEF) values of other map, except the value
+         * of given variable (if not null), to this map.
+         *
+         * @return true if this map changed as a result of the call.
+         */
+        private boolean copyFrom(DenseMap other, Var except) {
+            checkMethod(other);
+            long[] otherSlots = other.slots;
+            if (slots.length < otherSlots.length) {
+                slots = Arrays.copyOf(slots, otherSlots.length);
+            }
+            int exceptIndex = except != null && except.getMethod() == method ?
+                    except.getIndex() : -1;
+            boolean changed = false;
+            for (int i = 0; i < otherSlots.length; ++i) {
+                long slot = otherSlots[i];
+                if (slot != 0 && slots[i] != slot && i != exceptIndex) {
+                    slots[i] = slot;
+                    changed = true;
+                }
+            }
+            return changed;
+        }
+
+        /**
+         * Meets all values of other map into this map, i.e., a variable
+         * becomes NAC if the two maps hold different values for it,
+         * and UNDEF is the identity of the meet.
+         *
+         * @return true if this map changed as a result of the call.
+         */
+        private boolean meet(DenseMap other) {
+            checkMethod(other);
+            long[] otherSlots = other.slots;
+            if (slots.length < otherSlots.length) {
+                slots = Arrays.copyOf(slots, otherSlots.length);
+            }
+            boolean changed = false;
+            for (int i = 0; i < otherSlots.length; ++i) {
+                long slot = otherSlots[i];
+                if (slot != 0 && slots[i] != slot) {
+                    long met = slots[i] == 0 ? slot : NAC;
+                    changed |= slots[i] != met;
+                    slots[i] = met;
+                }
+            }
+            return changed;
+        }
+
+        @Override
+        public Value get(Object key) {
+            return decode(getSlot(key));
+        }
+
+        private Value getAt(int index) {
+            long slot = index < slots.length ? slots[index] : 0;
+            return slot != 0 ? decode(slot) : Value.getUndef();
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return getSlot(key) != 0;
+        }
+
+        @Override
+        public Value put(Var key, Value value) {
+            checkMethod(key);
+            int i = key.getIndex();
+            if (slots.length <= i) {
+                slots = Arrays.copyOf(slots, Math.max(i + 1, vars.size()));
+            }
+            long old = slots[i];
+            slots[i] = encode(value);
+            return decode(old);
+        }
+
+        @Override
+        public Value remove(Object key) {
+            long old = getSlot(key);
+            if (old != 0) {
+                slots[((Var) key).getIndex()] = 0;
+            }
+            return decode(old);
+        }
+
+        @Override
+        public void clear() {
+            Arrays.fill(slots, 0);
+        }
+
+        @Override
+        public int size() {
+            int size = 0;
+            for (long slot : slots) {
+                if (slot != 0) {
+                    ++size;
+                }
+            }
+            return size;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            for (long slot : slots) {
+                if (slot != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public Set<Var> keySet() {
+            return new SlotSet<>(vars::get);
+        }
+
+        @Override
+        public Set<Entry<Var, Value>> entrySet() {
+            return new SlotSet<>(i -> new SimpleImmutableEntry<>(
+                    vars.get(i), decode(slots[i])));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o instanceof DenseMap other) {
+                long[] shorter = slots, longer = other.slots;
+                if (shorter.length > longer.length) {
+                    shorter = other.slots;
+                    longer = slots;
+                }
+                for (int i = 0; i < shorter.length; ++i) {
+                    if (shorter[i] != longer[i]) {
+                        return false;
+                    }
+                }
+                for (int i = shorter.length; i < longer.length; ++i) {
+                    if (longer[i] != 0) {
+                        return false;
+                    }
+                }
+                // the facts of different methods are equal only if
+                // both are empty, in which case method does not matter
+                return method == other.method || isEmpty();
+            }
+            return super.equals(o);
+        }
+
+        /**
+         * Set view of the non-UNDEF slots, which maps each slot index
+         * to an element by the given function. The view is read-only,
+         * as the changes of the map must go through the fact holding it,
+         * which marks the changes (see {@link MapFact#getStamp()}).
+         */
+        private class SlotSet<E> extends AbstractSet<E> {
+
+            private final IntFunction<E> mapper;
+
+            private SlotSet(IntFunction<E> mapper) {
+                this.mapper = mapper;
+            }
+
+            @Override
+            public Iterator<E> iterator() {
+                return new Iterator<>() {
+
+                    private int next = nextSlot(0);
+
+                    @Override
+                    public boolean hasNext() {
+                        return next >= 0;
+                    }
+
+                    @Override
+                    public E next() {
+                        if (next < 0) {
+                            throw new NoSuchElementException();
+                        }
+                        int current = next;
+                        next = nextSlot(next + 1);
+                        return mapper.apply(current);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return DenseMap.this.size();
+            }
+
+            @Override
+            public boolean isEmpty() {
+                return DenseMap.this.isEmpty();
+            }
+
+            /**
+             * @return index of the first non-UNDEF slot on or after
+             * the given index, or -1 if there is no such slot.
+             */
+            private int nextSlot(int fromIndex) {
+                for (int i = fromIndex; i < slots.length; ++i) {
+                    if (slots[i] != 0) {
+                        return i;
+                    }
+                }
+                return -1;
+            }
+        }
     }
 }
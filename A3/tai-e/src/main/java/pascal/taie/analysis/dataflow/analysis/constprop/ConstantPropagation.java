@@ -22,15 +22,22 @@
 
 package pascal.taie.analysis.dataflow.analysis.constprop;
 
+import pascal.taie.analysis.ResultCache;
 import pascal.taie.analysis.dataflow.analysis.AbstractDataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
 import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
 import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.IR;
 import pascal.taie.ir.exp.*;
 import pascal.taie.ir.stmt.DefinitionStmt;
 import pascal.taie.ir.stmt.Stmt;
 import pascal.taie.language.type.PrimitiveType;
 import pascal.taie.language.type.Type;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.Optional;
 
 public class ConstantPropagation extends
@@ -38,8 +45,42 @@ public class ConstantPropagation extends
 
     public static final String ID = "constprop";
 
+    /**
+     * Representation of {@link CPFact}, which can be "hybrid" (default),
+     * i.e., hash-based, "dense", i.e., array-based, or "persistent",
+     * i.e., based on persistent hash trie.
+     */
+    private final String factKind;
+
+    /**
+     * Whether solve the analysis by the sparse conditional engine,
+     * see {@link SparseCPSolver}.
+     */
+    private final boolean sparse;
+
     public ConstantPropagation(AnalysisConfig config) {
         super(config);
+        factKind = getOptions().getString("fact");
+        sparse = getOptions().getBooleanOrDefault("sparse", false);
+    }
+
+    @Override
+    public DataflowResult<Stmt, CPFact> analyze(IR ir) {
+        if (sparse) {
+            CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+            return new SparseCPSolver(this, cfg).solve();
+        }
+        return super.analyze(ir);
+    }
+
+    private CPFact newFact() {
+        if ("dense".equals(factKind)) {
+            return CPFact.newDenseFact();
+        } else if ("persistent".equals(factKind)) {
+            return CPFact.newPersistentFact();
+        } else {
+            return new CPFact();
+        }
     }
 
     @Override
@@ -50,7 +91,7 @@ public class ConstantPropagation extends
     @Override
     public CPFact newBoundaryFact(CFG<Stmt> cfg) {
         // TODO - finish me
-        CPFact cpFact = new CPFact();
+        CPFact cpFact = newFact();
         for (Var var : cfg.getIR().getParams()) {
             if (canHoldInt(var)) {
                 cpFact.update(var, Value.getNAC());
@@ -62,12 +103,22 @@ public class ConstantPropagation extends
     @Override
     public CPFact newInitialFact() {
         // TODO - finish me
-        return new CPFact(); // use absence to represent UNDEF
+        return newFact(); // use absence to represent UNDEF
     }
 
     @Override
     public void meetInto(CPFact fact, CPFact target) {
         // TODO - finish me
+        if (fact.isDense() && target.isDense()) {
+            target.meetDense(fact);
+            return;
+        }
+        if (target.keySet().isEmpty()) {
+            // UNDEF is the identity of meet, and copying a persistent
+            // fact shares its structure
+            target.copyFrom(fact);
+            return;
+        }
         for (Var key : fact.keySet()) {
             target.update(key, meetValue(fact.get(key), target.get(key)));
         }
@@ -104,12 +155,12 @@ public class ConstantPropagation extends
         if (_def.isPresent()) {
             LValue def = _def.get();
             if (def instanceof Var && stmt instanceof DefinitionStmt) {
-                CPFact prev_out = out.copy();
-                out.copyFrom(in);
                 DefinitionStmt<?, ?> definitionStmt = (DefinitionStmt<?, ?>) stmt;
-                out.update((Var) def, evaluate(definitionStmt.getRValue(), in));
-                CPFact curr_out = out.copy();
-                return !curr_out.equals(prev_out);
+                // update out fact in place, the updates themselves
+                // tell whether it changes, thus no copy is needed
+                Value value = evaluate(definitionStmt, (Var) def, in);
+                boolean changed = out.copyFromExcept(in, (Var) def);
+                return out.update((Var) def, value) || changed;
             } else {
                 return out.copyFrom(in); // identity function
             }
@@ -118,6 +169,19 @@ public class ConstantPropagation extends
         }
     }
 
+    @Override
+    protected ResultCache.Codec<CPFact> getFactCodec() {
+        return new CPFactCodec();
+    }
+
+    /**
+     * Evaluates the right-hand side of given definition by its precompiled
+     * evaluator, which is cached in the IR containing the definition.
+     */
+    private static Value evaluate(DefinitionStmt<?, ?> stmt, Var def, CPFact in) {
+        return Evaluators.of(def.getMethod().getIR()).get(stmt).evaluate(in);
+    }
+
     /**
      * @return true if the given variable can hold integer value, otherwise false.
      */
@@ -137,137 +201,54 @@ public class ConstantPropagation extends
     }
 
     /**
-     * Evaluates the {@link Value} of given expression.
+     * Evaluates the {@link Value} of given expression. The expression is
+     * compiled (see {@link Evaluators}) on each call, thus the expressions
+     * evaluated repeatedly should use the evaluators precompiled by
+     * {@link Evaluators#of(IR)} instead.
      *
      * @param exp the expression to be evaluated
      * @param in  IN fact of the statement
      * @return the resulting {@link Value}
      */
     public static Value evaluate(Exp exp, CPFact in) {
-        // TODO - finish me
-        if (exp instanceof IntLiteral intLiteral) {
-            // CPFact unused
-            return Value.makeConstant(intLiteral.getValue());
-        }
-
-        if (exp instanceof Var var) {
-            // e.g. y = 1; x = y;
-            return in.get(var);
-        }
-
-        if (exp instanceof BinaryExp binaryExp) {
-            // recursive
-            Value op1 = evaluate(binaryExp.getOperand1(), in);
-            Value op2 = evaluate(binaryExp.getOperand2(), in);
-            if (op1.isNAC() || op2.isNAC()) {
-                return Value.getNAC();
-            }
-            if (op1.isConstant() && op2.isConstant()) {
-                int op1Literal = op1.getConstant();
-                int op2Literal = op2.getConstant();
-                BinaryExp.Op op = binaryExp.getOperator();
-                switch (op.toString()) {
-                    case "+":
-                        return Value.makeConstant(op1Literal + op2Literal);
-                    case "-":
-                        return Value.makeConstant(op1Literal - op2Literal);
-                    case "*":
-                        return Value.makeConstant(op1Literal * op2Literal);
-                    case "/":
-                        if (op2Literal == 0) {
-                            return Value.getUndef();
-                        }
-                        return Value.makeConstant(op1Literal / op2Literal);
-                    case "%":
-                        if (op2Literal == 0) {
-                            return Value.getUndef();
-                        }
-                        return Value.makeConstant(op1Literal % op2Literal);
-
-                    case "|":
-                        return Value.makeConstant(op1Literal | op2Literal);
-                    case "&":
-                        return Value.makeConstant(op1Literal & op2Literal);
-                    case "^":
-                        return Value.makeConstant(op1Literal ^ op2Literal);
-
-                    case "==":
-                        if (op1Literal == op2Literal)
-                            return Value.makeConstant(1);
-                        else
-                            return Value.makeConstant(0);
-                    case "!=":
-                        if (op1Literal != op2Literal)
-                            return Value.makeConstant(1);
-                        else
-                            return Value.makeConstant(0);
-                    case "<":
-                        if (op1Literal < op2Literal)
-                            return Value.makeConstant(1);
-                        else
-                            return Value.makeConstant(0);
-                    case ">":
-                        if (op1Literal > op2Literal)
-                            return Value.makeConstant(1);
-                        else
-                            return Value.makeConstant(0);
-                    case "<=":
-                        if (op1Literal <= op2Literal)
-                            return Value.makeConstant(1);
-                        else
-                            return Value.makeConstant(0);
-                    case ">=":
-                        if (op1Literal >= op2Literal)
-                            return Value.makeConstant(1);
-                        else
-                            return Value.makeConstant(0);
+        return Evaluators.compile(exp).evaluate(in);
+    }
 
-                    case "<<":
-                        return Value.makeConstant(op1Literal << op2Literal);
-                    case ">>":
-                        return Value.makeConstant(op1Literal >> op2Literal);
-                    case ">>>":
-                        return Value.makeConstant(op1Literal >>> op2Literal);
+    private class CPFactCodec implements ResultCache.Codec<CPFact> {
 
-                }
-            }
-            return Value.getUndef(); // note
+        /**
+         * Bump this when the transfer or evaluation of constants changes.
+         */
+        @Override
+        public int getVersion() {
+            return 1;
         }
 
-        if (exp instanceof NewExp) {
-            return Value.getUndef();
-        }
-
-        if (exp instanceof FieldAccess fieldAccess) {
-            Type type = fieldAccess.getFieldRef().getType();
-            if (type instanceof PrimitiveType) {
-                switch ((PrimitiveType) type) {
-                    case BYTE:
-                    case SHORT:
-                    case INT:
-                    case CHAR:
-                    case BOOLEAN:
-                        return Value.getNAC();
+        @Override
+        public void write(CPFact fact, IR ir, DataOutput out) throws IOException {
+            out.writeInt(fact.keySet().size());
+            for (Var var : fact.keySet()) {
+                Value value = fact.get(var);
+                out.writeInt(var.getIndex());
+                if (value.isConstant()) {
+                    out.writeByte(0);
+                    out.writeInt(value.getConstant());
+                } else {
+                    // UNDEF is never stored in CPFact, thus the value is NAC
+                    out.writeByte(1);
                 }
             }
-            return Value.getUndef();
         }
 
-        if (exp instanceof ArrayAccess arrayAccess) {
-            Type type = arrayAccess.getType();
-            if (type instanceof PrimitiveType) {
-                switch ((PrimitiveType) type) {
-                    case BYTE:
-                    case SHORT:
-                    case INT:
-                    case CHAR:
-                    case BOOLEAN:
-                        return Value.getNAC();
-                }
+        @Override
+        public CPFact read(IR ir, DataInput in) throws IOException {
+            CPFact fact = newFact();
+            for (int i = in.readInt(); i > 0; --i) {
+                Var var = ir.getVar(in.readInt());
+                fact.update(var, in.readByte() == 0 ?
+                        Value.makeConstant(in.readInt()) : Value.getNAC());
             }
-            return Value.getUndef();
+            return fact;
         }
-
-        return Value.getNAC(); // note
     }
-}
\ No newline at end of file
+}
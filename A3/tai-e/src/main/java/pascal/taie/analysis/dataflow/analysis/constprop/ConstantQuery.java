@@ -0,0 +1,237 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.ir.exp.BinaryExp;
+import pascal.taie.ir.exp.Exp;
+import pascal.taie.ir.exp.RValue;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.DefinitionStmt;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Pair;
+import pascal.taie.util.collection.SetQueue;
+import pascal.taie.util.collection.TwoKeyMap;
+
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Demand-driven constant propagation, which answers the value of a
+ * variable at a statement without solving the whole method.
+ * <p>
+ * The value of variable v before statement s is the meet of the values
+ * of v after the predecessors of s, where the value after a predecessor
+ * is given by its definition if it defines v, and is the value of v before
+ * the predecessor otherwise. To answer a query, this class walks backwards
+ * from the statement through the CFG, collects the (variable, statement)
+ * pairs which the query depends on, i.e., the operands of the definitions
+ * reached by the walk, and solves the values of these pairs by a
+ * work-list algorithm, which is needed as the pairs in loops depend on
+ * each other. The results coincide with the in facts of
+ * {@link ConstantPropagation} (without edge refinement), and all pairs
+ * solved for a query are memoized, so that later queries stop walking
+ * at them.
+ * <p>
+ * This class is not thread-safe, and is meant to be used for one method.
+ */
+public class ConstantQuery {
+
+    private final ConstantPropagation cp;
+
+    private final CFG<Stmt> cfg;
+
+    private final Evaluators evaluators;
+
+    /**
+     * Values of the solved pairs, i.e., statement -> variable -> value.
+     */
+    private final TwoKeyMap<Stmt, Var, Value> values = Maps.newTwoKeyMap();
+
+    public ConstantQuery(ConstantPropagation cp, CFG<Stmt> cfg) {
+        this.cp = cp;
+        this.cfg = cfg;
+        this.evaluators = Evaluators.of(cfg.getIR());
+    }
+
+    /**
+     * @return the value of given variable before given statement, i.e.,
+     * the value of the variable in the IN fact of the statement.
+     */
+    public Value valueAt(Var var, Stmt stmt) {
+        Value value = values.get(stmt, var);
+        if (value == null) {
+            solve(new Pair<>(var, stmt));
+            value = values.get(stmt, var);
+        }
+        return value;
+    }
+
+    /**
+     * @return the value of given expression before given statement,
+     * which is evaluated as {@link ConstantPropagation#evaluate(Exp, CPFact)}.
+     */
+    public Value evaluateAt(Exp exp, Stmt stmt) {
+        return ConstantPropagation.evaluate(exp, new QueryFact(stmt, null));
+    }
+
+    /**
+     * Solves the values of given pair and all unsolved pairs it depends on.
+     */
+    private void solve(Pair<Var, Stmt> root) {
+        // collect unsolved pairs, and initialize their values to UNDEF
+        Map<Pair<Var, Stmt>, Value> pending = Maps.newMap();
+        MultiMap<Pair<Var, Stmt>, Pair<Var, Stmt>> dependents = Maps.newMultiMap();
+        Deque<Pair<Var, Stmt>> stack = new ArrayDeque<>();
+        pending.put(root, Value.getUndef());
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            Pair<Var, Stmt> pair = stack.pop();
+            for (Pair<Var, Stmt> dependee : getDependees(pair)) {
+                if (!values.containsKey(dependee.second(), dependee.first())) {
+                    dependents.put(dependee, pair);
+                    if (!pending.containsKey(dependee)) {
+                        pending.put(dependee, Value.getUndef());
+                        stack.push(dependee);
+                    }
+                }
+            }
+        }
+        // solve the pending pairs until their values are stable
+        SetQueue<Pair<Var, Stmt>> workList = new SetQueue<>();
+        workList.addAll(pending.keySet());
+        while (!workList.isEmpty()) {
+            Pair<Var, Stmt> pair = workList.poll();
+            Value value = compute(pair.first(), pair.second(), pending);
+            if (!value.equals(pending.put(pair, value))) {
+                workList.addAll(dependents.get(pair));
+            }
+        }
+        pending.forEach((pair, value) ->
+                values.put(pair.second(), pair.first(), value));
+    }
+
+    /**
+     * @return the pairs whose values are needed to compute
+     * the value of given pair.
+     */
+    private List<Pair<Var, Stmt>> getDependees(Pair<Var, Stmt> pair) {
+        Var var = pair.first();
+        Stmt stmt = pair.second();
+        if (cfg.isEntry(stmt)) {
+            return List.of();
+        }
+        List<Pair<Var, Stmt>> dependees = new ArrayList<>();
+        for (Stmt pred : cfg.getPredsOf(stmt)) {
+            RValue rvalue = getDefinition(pred, var);
+            if (rvalue == null) {
+                dependees.add(new Pair<>(var, pred));
+            } else {
+                // the variables read by ConstantPropagation.evaluate()
+                if (rvalue instanceof Var operand) {
+                    dependees.add(new Pair<>(operand, pred));
+                } else if (rvalue instanceof BinaryExp binaryExp) {
+                    dependees.add(new Pair<>(binaryExp.getOperand1(), pred));
+                    dependees.add(new Pair<>(binaryExp.getOperand2(), pred));
+                }
+            }
+        }
+        return dependees;
+    }
+
+    /**
+     * Computes the value of given variable before given statement,
+     * from the current values of the pairs it depends on.
+     */
+    private Value compute(Var var, Stmt stmt, Map<Pair<Var, Stmt>, Value> pending) {
+        if (cfg.isEntry(stmt)) {
+            // the same as the boundary fact
+            return cfg.getIR().getParams().contains(var) &&
+                    ConstantPropagation.canHoldInt(var) ?
+                    Value.getNAC() : Value.getUndef();
+        }
+        Value value = Value.getUndef();
+        for (Stmt pred : cfg.getPredsOf(stmt)) {
+            RValue rvalue = getDefinition(pred, var);
+            Value predValue = rvalue == null ?
+                    lookup(var, pred, pending) :
+                    evaluators.get(pred).evaluate(new QueryFact(pred, pending));
+            value = cp.meetValue(value, predValue);
+        }
+        return value;
+    }
+
+    /**
+     * @return the right-hand side of given statement if it defines
+     * given variable, otherwise null. This follows the transfer
+     * function of {@link ConstantPropagation}.
+     */
+    @Nullable
+    private static RValue getDefinition(Stmt stmt, Var var) {
+        if (stmt instanceof DefinitionStmt<?, ?> definitionStmt &&
+                definitionStmt.getLValue() == var) {
+            return definitionStmt.getRValue();
+        }
+        return null;
+    }
+
+    private Value lookup(Var var, Stmt stmt, Map<Pair<Var, Stmt>, Value> pending) {
+        Value value = values.get(stmt, var);
+        return value != null ? value : pending.get(new Pair<>(var, stmt));
+    }
+
+    /**
+     * The IN fact of a statement, whose values are looked up on demand.
+     * This is only passed to {@link ConstantPropagation#evaluate(Exp, CPFact)}
+     * and {@link Evaluator}s, which read the fact via {@link CPFact#get(Var)}.
+     */
+    private class QueryFact extends CPFact {
+
+        private final Stmt stmt;
+
+        /**
+         * Values of the pairs being solved, or null if the values
+         * are queried by {@link #valueAt(Var, Stmt)}.
+         */
+        @Nullable
+        private final Map<Pair<Var, Stmt>, Value> pending;
+
+        private QueryFact(Stmt stmt, @Nullable Map<Pair<Var, Stmt>, Value> pending) {
+            this.stmt = stmt;
+            this.pending = pending;
+        }
+
+        @Override
+        public Value get(Var key) {
+            return pending == null ?
+                    valueAt(key, stmt) : lookup(key, stmt, pending);
+        }
+    }
+}
@@ -0,0 +1,325 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.ArithmeticExp;
+import pascal.taie.ir.exp.ArrayAccess;
+import pascal.taie.ir.exp.BinaryExp;
+import pascal.taie.ir.exp.BitwiseExp;
+import pascal.taie.ir.exp.ConditionExp;
+import pascal.taie.ir.exp.Exp;
+import pascal.taie.ir.exp.FieldAccess;
+import pascal.taie.ir.exp.IntLiteral;
+import pascal.taie.ir.exp.NewExp;
+import pascal.taie.ir.exp.ShiftExp;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.DefinitionStmt;
+import pascal.taie.ir.stmt.If;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.ir.stmt.SwitchStmt;
+import pascal.taie.language.type.PrimitiveType;
+import pascal.taie.language.type.Type;
+
+import javax.annotation.Nullable;
+
+/**
+ * Precompiled {@link Evaluator}s of the expressions evaluated by constant
+ * propagation in an IR, i.e., the right-hand sides of the definitions of
+ * variables, the conditions of {@link If}, and the variables of
+ * {@link SwitchStmt}.
+ * <p>
+ * Each expression is compiled once into a tree of evaluators, where the
+ * kinds of the expressions are resolved, the operators are dispatched by
+ * enum, and the variables are resolved to their indexes, so that their
+ * values are read from the slots of dense facts directly.
+ * The evaluators are indexed by the statements, and cached as a result
+ * of the IR, so that they are shared by the intra- and inter-procedural
+ * constant propagations.
+ */
+public class Evaluators {
+
+    /**
+     * Key of the evaluators in the results of IR.
+     */
+    public static final String ID = "constprop-evaluators";
+
+    private static final Evaluator UNDEF = in -> Value.getUndef();
+
+    private static final Evaluator NAC = in -> Value.getNAC();
+
+    /**
+     * Evaluators indexed by {@link Stmt#getIndex()}.
+     */
+    private final Evaluator[] evaluators;
+
+    private Evaluators(IR ir) {
+        evaluators = new Evaluator[ir.getStmts().size()];
+        for (Stmt stmt : ir) {
+            Exp exp = getExp(stmt);
+            if (exp != null) {
+                evaluators[stmt.getIndex()] = compile(exp);
+            }
+        }
+    }
+
+    /**
+     * @return the evaluators of given IR, which are compiled on first access.
+     */
+    public static Evaluators of(IR ir) {
+        Evaluators evaluators = ir.getResult(ID);
+        return evaluators != null ? evaluators :
+                ir.getResult(ID, () -> new Evaluators(ir));
+    }
+
+    /**
+     * @return the evaluator of the expression evaluated at given statement.
+     * @throws IllegalArgumentException if the statement evaluates no expression
+     */
+    public Evaluator get(Stmt stmt) {
+        Evaluator evaluator = evaluators[stmt.getIndex()];
+        if (evaluator == null) {
+            throw new IllegalArgumentException(stmt + " evaluates no expression");
+        }
+        return evaluator;
+    }
+
+    @Nullable
+    private static Exp getExp(Stmt stmt) {
+        if (stmt instanceof DefinitionStmt<?, ?> definitionStmt) {
+            return definitionStmt.getLValue() instanceof Var ?
+                    definitionStmt.getRValue() : null;
+        } else if (stmt instanceof If ifStmt) {
+            return ifStmt.getCondition();
+        } else if (stmt instanceof SwitchStmt switchStmt) {
+            return switchStmt.getVar();
+        }
+        return null;
+    }
+
+    /**
+     * Compiles given expression, which also implements
+     * {@link ConstantPropagation#evaluate(Exp, CPFact)}.
+     */
+    static Evaluator compile(Exp exp) {
+        if (exp instanceof IntLiteral intLiteral) {
+            Value value = Value.makeConstant(intLiteral.getValue());
+            return in -> value;
+        }
+        if (exp instanceof Var var) {
+            int index = var.getIndex();
+            return in -> in.get(var, index);
+        }
+        if (exp instanceof BinaryExp binaryExp) {
+            Operator op = Operator.of(binaryExp.getOperator());
+            Evaluator operand1 = compile(binaryExp.getOperand1());
+            Evaluator operand2 = compile(binaryExp.getOperand2());
+            return in -> {
+                Value v1 = operand1.evaluate(in);
+                Value v2 = operand2.evaluate(in);
+                if (v1.isNAC() || v2.isNAC()) {
+                    return Value.getNAC();
+                }
+                if (v1.isConstant() && v2.isConstant()) {
+                    return op.apply(v1.getConstant(), v2.getConstant());
+                }
+                return Value.getUndef();
+            };
+        }
+        if (exp instanceof NewExp) {
+            return UNDEF;
+        }
+        if (exp instanceof FieldAccess fieldAccess) {
+            return canHoldInt(fieldAccess.getFieldRef().getType()) ? NAC : UNDEF;
+        }
+        if (exp instanceof ArrayAccess arrayAccess) {
+            return canHoldInt(arrayAccess.getType()) ? NAC : UNDEF;
+        }
+        return NAC;
+    }
+
+    private static boolean canHoldInt(Type type) {
+        if (type instanceof PrimitiveType primitiveType) {
+            return switch (primitiveType) {
+                case BYTE, SHORT, INT, CHAR, BOOLEAN -> true;
+                default -> false;
+            };
+        }
+        return false;
+    }
+
+    /**
+     * Binary operators on constants.
+     */
+    private enum Operator {
+
+        ADD {
+            @Override
+            Value apply(int i1, int i2) {
+                return Value.makeConstant(i1 + i2);
+            }
+        },
+        SUB {
+            @Override
+            Value apply(int i1, int i2) {
+                return Value.makeConstant(i1 - i2);
+            }
+        },
+        MUL {
+            @Override
+            Value apply(int i1, int i2) {
+                return Value.makeConstant(i1 * i2);
+            }
+        },
+        DIV {
+            @Override
+            Value apply(int i1, int i2) {
+                return i2 == 0 ? Value.getUndef() : Value.makeConstant(i1 / i2);
+            }
+        },
+        REM {
+            @Override
+            Value apply(int i1, int i2) {
+                return i2 == 0 ? Value.getUndef() : Value.makeConstant(i1 % i2);
+            }
+        },
+        OR {
+            @Override
+            Value apply(int i1, int i2) {
+                return Value.makeConstant(i1 | i2);
+            }
+        },
+        AND {
+            @Override
+            Value apply(int i1, int i2) {
+                return Value.makeConstant(i1 & i2);
+            }
+        },
+        XOR {
+            @Override
+            Value apply(int i1, int i2) {
+                return Value.makeConstant(i1 ^ i2);
+            }
+        },
+        EQ {
+            @Override
+            Value apply(int i1, int i2) {
+                return Value.makeConstant(i1 == i2 ? 1 : 0);
+            }
+        },
+        NE {
+            @Override
+            Value apply(int i1, int i2) {
+                return Value.makeConstant(i1 != i2 ? 1 : 0);
+            }
+        },
+        LT {
+            @Override
+            Value apply(int i1, int i2) {
+                return Value.makeConstant(i1 < i2 ? 1 : 0);
+            }
+        },
+        GT {
+            @Override
+            Value apply(int i1, int i2) {
+                return Value.makeConstant(i1 > i2 ? 1 : 0);
+            }
+        },
+        LE {
+            @Override
+            Value apply(int i1, int i2) {
+                return Value.makeConstant(i1 <= i2 ? 1 : 0);
+            }
+        },
+        GE {
+            @Override
+            Value apply(int i1, int i2) {
+                return Value.makeConstant(i1 >= i2 ? 1 : 0);
+            }
+        },
+        SHL {
+            @Override
+            Value apply(int i1, int i2) {
+                return Value.makeConstant(i1 << i2);
+            }
+        },
+        SHR {
+            @Override
+            Value apply(int i1, int i2) {
+                return Value.makeConstant(i1 >> i2);
+            }
+        },
+        USHR {
+            @Override
+            Value apply(int i1, int i2) {
+                return Value.makeConstant(i1 >>> i2);
+            }
+        },
+        /**
+         * Operators which are not evaluated on constants.
+         */
+        OTHER {
+            @Override
+            Value apply(int i1, int i2) {
+                return Value.getUndef();
+            }
+        };
+
+        abstract Value apply(int i1, int i2);
+
+        private static Operator of(BinaryExp.Op op) {
+            if (op instanceof ArithmeticExp.Op arithmeticOp) {
+                return switch (arithmeticOp) {
+                    case ADD -> ADD;
+                    case SUB -> SUB;
+                    case MUL -> MUL;
+                    case DIV -> DIV;
+                    case REM -> REM;
+                };
+            } else if (op instanceof BitwiseExp.Op bitwiseOp) {
+                return switch (bitwiseOp) {
+                    case OR -> OR;
+                    case AND -> AND;
+                    case XOR -> XOR;
+                };
+            } else if (op instanceof ConditionExp.Op conditionOp) {
+                return switch (conditionOp) {
+                    case EQ -> EQ;
+                    case NE -> NE;
+                    case LT -> LT;
+                    case GT -> GT;
+                    case LE -> LE;
+                    case GE -> GE;
+                };
+            } else if (op instanceof ShiftExp.Op shiftOp) {
+                return switch (shiftOp) {
+                    case SHL -> SHL;
+                    case SHR -> SHR;
+                    case USHR -> USHR;
+                };
+            }
+            return OTHER;
+        }
+    }
+}
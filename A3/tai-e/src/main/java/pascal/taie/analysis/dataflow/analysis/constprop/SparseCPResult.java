@@ -0,0 +1,153 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.ir.exp.LValue;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.DefinitionStmt;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Result of {@link SparseCPSolver}.
+ * <p>
+ * Besides the lattice values of the definitions, it provides the
+ * executable CFG edges, which can be consumed by clients such as
+ * dead code detection directly. The per-statement {@link CPFact}s
+ * are not computed by the sparse solver; they are materialized from
+ * the values of the definitions on the first query, by propagating
+ * them along the executable edges. Non-executable statements have
+ * empty (i.e., all UNDEF) facts.
+ */
+public class SparseCPResult extends DataflowResult<Stmt, CPFact> {
+
+    private final ConstantPropagation cp;
+
+    private final CFG<Stmt> cfg;
+
+    private final CPFact boundaryFact;
+
+    private final Map<Stmt, Value> defValues;
+
+    private final Set<Stmt> executableNodes;
+
+    private final Set<Edge<Stmt>> executableEdges;
+
+    private boolean materialized = false;
+
+    SparseCPResult(ConstantPropagation cp, CFG<Stmt> cfg, CPFact boundaryFact,
+                   Map<Stmt, Value> defValues, Set<Stmt> executableNodes,
+                   Set<Edge<Stmt>> executableEdges) {
+        this.cp = cp;
+        this.cfg = cfg;
+        this.boundaryFact = boundaryFact;
+        this.defValues = defValues;
+        this.executableNodes = executableNodes;
+        this.executableEdges = executableEdges;
+    }
+
+    /**
+     * @return the CFG edges proven executable.
+     */
+    public Set<Edge<Stmt>> getExecutableEdges() {
+        return Collections.unmodifiableSet(executableEdges);
+    }
+
+    /**
+     * @return true if given statement is reachable via executable edges,
+     * otherwise false.
+     */
+    public boolean isExecutable(Stmt stmt) {
+        return executableNodes.contains(stmt);
+    }
+
+    @Override
+    public CPFact getInFact(Stmt stmt) {
+        materialize();
+        return super.getInFact(stmt);
+    }
+
+    @Override
+    public CPFact getOutFact(Stmt stmt) {
+        materialize();
+        return super.getOutFact(stmt);
+    }
+
+    private void materialize() {
+        if (materialized) {
+            return;
+        }
+        materialized = true;
+        for (Stmt stmt : cfg) {
+            setInFact(stmt, cp.newInitialFact());
+            setOutFact(stmt, cp.newInitialFact());
+        }
+        Stmt entry = cfg.getEntry();
+        setInFact(entry, boundaryFact.copy());
+        setOutFact(entry, boundaryFact.copy());
+        Queue<Stmt> workList = new ArrayDeque<>();
+        Set<Stmt> inWorkList = Sets.newSet();
+        for (Stmt stmt : cfg) {
+            if (stmt != entry && executableNodes.contains(stmt)) {
+                workList.add(stmt);
+                inWorkList.add(stmt);
+            }
+        }
+        while (!workList.isEmpty()) {
+            Stmt stmt = workList.poll();
+            inWorkList.remove(stmt);
+            CPFact in = super.getInFact(stmt);
+            for (Edge<Stmt> edge : cfg.getInEdgesOf(stmt)) {
+                if (executableEdges.contains(edge)) {
+                    cp.meetInto(super.getOutFact(edge.getSource()), in);
+                }
+            }
+            CPFact out = in.copy();
+            Optional<LValue> def = stmt.getDef();
+            if (stmt instanceof DefinitionStmt
+                    && def.isPresent() && def.get() instanceof Var var) {
+                out.update(var, defValues.getOrDefault(stmt, Value.getUndef()));
+            }
+            if (!out.equals(super.getOutFact(stmt))) {
+                setOutFact(stmt, out);
+                for (Edge<Stmt> edge : cfg.getOutEdgesOf(stmt)) {
+                    Stmt succ = edge.getTarget();
+                    if (executableEdges.contains(edge) && inWorkList.add(succ)) {
+                        workList.add(succ);
+                    }
+                }
+            }
+        }
+    }
+}
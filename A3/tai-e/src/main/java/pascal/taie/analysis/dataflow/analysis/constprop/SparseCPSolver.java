@@ -0,0 +1,345 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.ir.exp.LValue;
+import pascal.taie.ir.exp.RValue;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.DefinitionStmt;
+import pascal.taie.ir.stmt.If;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.ir.stmt.SwitchStmt;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
+import pascal.taie.util.collection.TwoKeyMap;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Sparse conditional constant propagation (in the style of Wegman and
+ * Zadeck) over def-use chains.
+ * <p>
+ * Instead of keeping a whole {@link CPFact} for every statement, this
+ * solver keeps one lattice value for each definition, propagates changed
+ * values only to the uses reached by the definition, and evaluates only
+ * the statements reachable via CFG edges proven executable, where the
+ * out edges of {@link If} and {@link SwitchStmt} are made executable
+ * according to the (constant) values of their conditions.
+ * <p>
+ * As the IR is not in SSA form, the def-use chains are computed by
+ * a single reaching definitions analysis on bit vectors before solving.
+ * The entry node acts as the definition of all variables (e.g., the
+ * parameters), whose values are given by the boundary fact.
+ */
+class SparseCPSolver {
+
+    private final ConstantPropagation cp;
+
+    private final CFG<Stmt> cfg;
+
+    private final Stmt entry;
+
+    private final Evaluators evaluators;
+
+    /**
+     * Values of the parameters at entry of the method.
+     */
+    private final CPFact boundaryFact;
+
+    /**
+     * Reaching definitions of each (use statement, used variable).
+     */
+    private final TwoKeyMap<Stmt, Var, Set<Stmt>> reachingDefs = Maps.newTwoKeyMap();
+
+    /**
+     * Uses reached by each definition.
+     */
+    private final MultiMap<Stmt, Stmt> defToUses = Maps.newMultiMap();
+
+    /**
+     * Lattice value of the variable defined by each definition.
+     */
+    private final Map<Stmt, Value> defValues = Maps.newMap();
+
+    private final Set<Stmt> executableNodes = Sets.newSet();
+
+    private final Set<Edge<Stmt>> executableEdges = Sets.newSet();
+
+    /**
+     * Statements which become executable, and wait for the first visit.
+     */
+    private final Queue<Stmt> flowWorkList = new ArrayDeque<>();
+
+    /**
+     * Executable statements whose used values changed.
+     */
+    private final Queue<Stmt> useWorkList = new ArrayDeque<>();
+
+    SparseCPSolver(ConstantPropagation cp, CFG<Stmt> cfg) {
+        this.cp = cp;
+        this.cfg = cfg;
+        this.entry = cfg.getEntry();
+        this.evaluators = Evaluators.of(cfg.getIR());
+        this.boundaryFact = cp.newBoundaryFact(cfg);
+    }
+
+    SparseCPResult solve() {
+        buildDefUseChains();
+        executableNodes.add(entry);
+        flowWorkList.add(entry);
+        do {
+            propagate();
+        } while (resolveUndefBranches());
+        return new SparseCPResult(cp, cfg, boundaryFact,
+                defValues, executableNodes, executableEdges);
+    }
+
+    /**
+     * Computes the reaching definitions of all statements by a forward
+     * data-flow analysis on bit vectors, and then builds the def-use chains
+     * from them. Bits 0 to (#variables - 1) represent the definitions of
+     * the variables (with the same indexes) at the entry, and the other
+     * bits represent the definition statements in the CFG.
+     */
+    private void buildDefUseChains() {
+        List<Var> vars = cfg.getIR().getVars();
+        int nVars = vars.size();
+        List<Stmt> nodes = new ArrayList<>(cfg.getNodes());
+        Map<Stmt, Integer> ids = Maps.newMap(nodes.size());
+        List<Stmt> defStmts = new ArrayList<>();
+        BitSet[] defsOfVar = new BitSet[nVars];
+        for (int i = 0; i < nVars; ++i) {
+            defsOfVar[i] = new BitSet();
+            defsOfVar[i].set(i);
+        }
+        int[] defIds = new int[nodes.size()];
+        for (int i = 0; i < nodes.size(); ++i) {
+            Stmt node = nodes.get(i);
+            ids.put(node, i);
+            Var def = getDefVar(node);
+            if (def != null && node != entry) {
+                defIds[i] = nVars + defStmts.size();
+                defStmts.add(node);
+                defsOfVar[def.getIndex()].set(defIds[i]);
+            } else {
+                defIds[i] = -1;
+            }
+        }
+        // solve reaching definitions
+        BitSet[] inFacts = new BitSet[nodes.size()];
+        BitSet[] outFacts = new BitSet[nodes.size()];
+        for (int i = 0; i < nodes.size(); ++i) {
+            inFacts[i] = new BitSet();
+            outFacts[i] = new BitSet();
+        }
+        outFacts[ids.get(entry)].set(0, nVars);
+        Deque<Integer> workList = new ArrayDeque<>();
+        BitSet inList = new BitSet(nodes.size());
+        for (int i = 0; i < nodes.size(); ++i) {
+            if (nodes.get(i) != entry) {
+                workList.add(i);
+                inList.set(i);
+            }
+        }
+        while (!workList.isEmpty()) {
+            int i = workList.poll();
+            inList.clear(i);
+            Stmt node = nodes.get(i);
+            BitSet in = inFacts[i];
+            for (Stmt pred : cfg.getPredsOf(node)) {
+                in.or(outFacts[ids.get(pred)]);
+            }
+            BitSet out = (BitSet) in.clone();
+            if (defIds[i] != -1) {
+                out.andNot(defsOfVar[getDefVar(node).getIndex()]);
+                out.set(defIds[i]);
+            }
+            if (!out.equals(outFacts[i])) {
+                outFacts[i] = out;
+                for (Stmt succ : cfg.getSuccsOf(node)) {
+                    int j = ids.get(succ);
+                    if (!inList.get(j)) {
+                        inList.set(j);
+                        workList.add(j);
+                    }
+                }
+            }
+        }
+        // build def-use chains
+        for (int i = 0; i < nodes.size(); ++i) {
+            Stmt stmt = nodes.get(i);
+            for (RValue use : stmt.getUses()) {
+                if (use instanceof Var var &&
+                        !reachingDefs.containsKey(stmt, var)) {
+                    BitSet reaching = (BitSet) inFacts[i].clone();
+                    reaching.and(defsOfVar[var.getIndex()]);
+                    Set<Stmt> defs = Sets.newHybridSet();
+                    for (int d = reaching.nextSetBit(0); d >= 0;
+                         d = reaching.nextSetBit(d + 1)) {
+                        defs.add(d < nVars ? entry : defStmts.get(d - nVars));
+                    }
+                    reachingDefs.put(stmt, var, defs);
+                    defs.forEach(def -> defToUses.put(def, stmt));
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the variable defined by given statement, or null if
+     * the statement does not define any variable.
+     */
+    private static Var getDefVar(Stmt stmt) {
+        Optional<LValue> def = stmt.getDef();
+        return def.isPresent() && def.get() instanceof Var var ? var : null;
+    }
+
+    private void propagate() {
+        while (!flowWorkList.isEmpty() || !useWorkList.isEmpty()) {
+            while (!flowWorkList.isEmpty()) {
+                visit(flowWorkList.poll());
+            }
+            while (!useWorkList.isEmpty()) {
+                visit(useWorkList.poll());
+            }
+        }
+    }
+
+    private void visit(Stmt stmt) {
+        CPFact in = evaluateUses(stmt);
+        if (stmt instanceof If ifStmt) {
+            Value cond = evaluators.get(ifStmt).evaluate(in);
+            for (Edge<Stmt> edge : cfg.getOutEdgesOf(stmt)) {
+                if (cond.isNAC() || (cond.isConstant() &&
+                        (cond.getConstant() == 1) ==
+                                (edge.getKind() == Edge.Kind.IF_TRUE))) {
+                    markExecutable(edge);
+                }
+            }
+        } else if (stmt instanceof SwitchStmt switchStmt) {
+            Value value = in.get(switchStmt.getVar());
+            if (value.isNAC()) {
+                cfg.getOutEdgesOf(stmt).forEach(this::markExecutable);
+            } else if (value.isConstant()) {
+                int caseValue = value.getConstant();
+                boolean hit = false;
+                for (Edge<Stmt> edge : cfg.getOutEdgesOf(stmt)) {
+                    if (edge.isSwitchCase() && edge.getCaseValue() == caseValue) {
+                        hit = true;
+                        markExecutable(edge);
+                    }
+                }
+                if (!hit) {
+                    for (Edge<Stmt> edge : cfg.getOutEdgesOf(stmt)) {
+                        if (edge.getKind() == Edge.Kind.SWITCH_DEFAULT) {
+                            markExecutable(edge);
+                        }
+                    }
+                }
+            }
+        } else {
+            Var def = getDefVar(stmt);
+            if (def != null && stmt instanceof DefinitionStmt<?, ?> defStmt) {
+                Value value = evaluators.get(defStmt).evaluate(in);
+                Value old = defValues.getOrDefault(stmt, Value.getUndef());
+                if (!value.equals(old)) {
+                    defValues.put(stmt, value);
+                    for (Stmt use : defToUses.get(stmt)) {
+                        if (executableNodes.contains(use)) {
+                            useWorkList.add(use);
+                        }
+                    }
+                }
+            }
+            cfg.getOutEdgesOf(stmt).forEach(this::markExecutable);
+        }
+    }
+
+    /**
+     * @return a fact containing the values of the variables used by
+     * given statement, each of which is the meet of the values of its
+     * executable reaching definitions.
+     */
+    private CPFact evaluateUses(Stmt stmt) {
+        CPFact fact = new CPFact();
+        for (RValue use : stmt.getUses()) {
+            if (use instanceof Var var) {
+                Value value = Value.getUndef();
+                for (Stmt def : reachingDefs.get(stmt, var)) {
+                    if (def == entry) {
+                        value = cp.meetValue(value, boundaryFact.get(var));
+                    } else if (executableNodes.contains(def)) {
+                        value = cp.meetValue(value,
+                                defValues.getOrDefault(def, Value.getUndef()));
+                    }
+                }
+                fact.update(var, value);
+            }
+        }
+        return fact;
+    }
+
+    private void markExecutable(Edge<Stmt> edge) {
+        if (executableEdges.add(edge)) {
+            Stmt target = edge.getTarget();
+            if (executableNodes.add(target)) {
+                flowWorkList.add(target);
+            }
+        }
+    }
+
+    /**
+     * Conditions which are still UNDEF at the fixed point (e.g., due to
+     * division by zero) cannot decide any branch, thus we conservatively
+     * make all out edges of such branches executable, as the dense
+     * dead code detection does.
+     *
+     * @return true if any edge becomes executable.
+     */
+    private boolean resolveUndefBranches() {
+        boolean changed = false;
+        for (Stmt stmt : Set.copyOf(executableNodes)) {
+            if ((stmt instanceof If || stmt instanceof SwitchStmt) &&
+                    cfg.getOutEdgesOf(stmt).stream()
+                            .noneMatch(executableEdges::contains)) {
+                for (Edge<Stmt> edge : cfg.getOutEdgesOf(stmt)) {
+                    markExecutable(edge);
+                    changed = true;
+                }
+            }
+        }
+        return changed;
+    }
+}
@@ -0,0 +1,324 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.fact;
+
+import pascal.taie.ir.exp.Var;
+import pascal.taie.util.collection.BitKernels;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Set-like data-flow facts of variables, which is represented as a
+ * bit vector indexed by {@link Var#getIndex()}.
+ * <p>
+ * As the indexes of the variables are dense within a method, this fact
+ * can be used as a drop-in replacement of {@link SetFact}{@code <Var>}
+ * for intra-procedural analyses, and its union, intersection, removal
+ * and equality test are performed word by word, without hashing
+ * any variables. The word-wise loops of union, intersection, removal
+ * and size are performed by {@link BitKernels}.
+ */
+public class BitSetFact extends SetFact<Var> {
+
+    public BitSetFact() {
+        super(VarBitSet::new);
+    }
+
+    public BitSetFact(Collection<Var> c) {
+        this();
+        set.addAll(c);
+    }
+
+    private BitSetFact(BitSetFact fact) {
+        super(() -> new VarBitSet((VarBitSet) fact.set));
+    }
+
+    @Override
+    public BitSetFact copy() {
+        return new BitSetFact(this);
+    }
+
+    @Override
+    protected boolean doSetToGenKill(SetFact<Var> gen, SetFact<Var> source, SetFact<Var> kill) {
+        if (set instanceof VarBitSet target
+                && gen.set instanceof VarBitSet genSet
+                && source.set instanceof VarBitSet sourceSet
+                && kill.set instanceof VarBitSet killSet) {
+            return target.setToGenKill(genSet, sourceSet, killSet);
+        }
+        return super.doSetToGenKill(gen, source, kill);
+    }
+
+    /**
+     * Bit-vector based {@link java.util.Set} of variables. Set operations
+     * with another {@link VarBitSet} are performed on the underlying words,
+     * and the other ones fall back to the generic element-wise algorithms.
+     */
+    private static class VarBitSet extends AbstractSet<Var> {
+
+        private static final long[] EMPTY_WORDS = {};
+
+        private static final BitKernels KERNELS = BitKernels.get();
+
+        private long[] words;
+
+        /**
+         * Variables of the method which the elements belong to,
+         * used to map set bits back to variables. It is obtained
+         * from the first added element, and is null before that.
+         */
+        private List<Var> vars;
+
+        private VarBitSet() {
+            words = EMPTY_WORDS;
+        }
+
+        private VarBitSet(VarBitSet other) {
+            words = other.words.length == 0 ?
+                    EMPTY_WORDS : other.words.clone();
+            vars = other.vars;
+        }
+
+        private static int wordIndex(int bitIndex) {
+            return bitIndex >>> 6;
+        }
+
+        private void ensureCapacity(int nWords) {
+            if (words.length < nWords) {
+                words = Arrays.copyOf(words, nWords);
+            }
+        }
+
+        private void ensureVars(Var var) {
+            if (vars == null) {
+                vars = var.getMethod().getIR().getVars();
+            }
+        }
+
+        private void ensureVars(VarBitSet other) {
+            if (vars == null) {
+                vars = other.vars;
+            }
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (o instanceof Var var) {
+                int i = wordIndex(var.getIndex());
+                return i < words.length &&
+                        (words[i] & (1L << var.getIndex())) != 0;
+            }
+            return false;
+        }
+
+        @Override
+        public boolean add(Var var) {
+            ensureVars(var);
+            int index = var.getIndex();
+            int i = wordIndex(index);
+            ensureCapacity(i + 1);
+            long old = words[i];
+            words[i] |= 1L << index;
+            return words[i] != old;
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (o instanceof Var var) {
+                int index = var.getIndex();
+                int i = wordIndex(index);
+                if (i < words.length) {
+                    long old = words[i];
+                    words[i] &= ~(1L << index);
+                    return words[i] != old;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public boolean addAll(Collection<? extends Var> c) {
+            if (c instanceof VarBitSet other) {
+                ensureVars(other);
+                ensureCapacity(other.words.length);
+                return KERNELS.or(words, other.words, other.words.length);
+            }
+            return super.addAll(c);
+        }
+
+        @Override
+        public boolean retainAll(Collection<?> c) {
+            if (c instanceof VarBitSet other) {
+                int n = Math.min(words.length, other.words.length);
+                boolean changed = KERNELS.and(words, other.words, n);
+                // the words beyond the other set are cleared
+                for (int i = n; i < words.length; ++i) {
+                    if (words[i] != 0) {
+                        words[i] = 0;
+                        changed = true;
+                    }
+                }
+                return changed;
+            }
+            return super.retainAll(c);
+        }
+
+        @Override
+        public boolean removeAll(Collection<?> c) {
+            if (c instanceof VarBitSet other) {
+                return KERNELS.andNot(words, other.words,
+                        Math.min(words.length, other.words.length));
+            }
+            return super.removeAll(c);
+        }
+
+        /**
+         * Sets this set to {@code gen ∪ (source − kill)} word by word.
+         *
+         * @return true if this set changed as a result of the call.
+         */
+        private boolean setToGenKill(VarBitSet gen, VarBitSet source, VarBitSet kill) {
+            ensureVars(gen);
+            ensureVars(source);
+            long[] genWords = gen.words, sourceWords = source.words,
+                    killWords = kill.words;
+            ensureCapacity(Math.max(genWords.length, sourceWords.length));
+            long changed = 0;
+            for (int i = 0; i < words.length; ++i) {
+                long word = (i < genWords.length ? genWords[i] : 0) |
+                        ((i < sourceWords.length ? sourceWords[i] : 0) &
+                                ~(i < killWords.length ? killWords[i] : 0));
+                changed |= words[i] ^ word;
+                words[i] = word;
+            }
+            return changed != 0;
+        }
+
+        @Override
+        public void clear() {
+            Arrays.fill(words, 0);
+        }
+
+        @Override
+        public int size() {
+            return KERNELS.popCount(words, words.length);
+        }
+
+        @Override
+        public boolean isEmpty() {
+            for (long word : words) {
+                if (word != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public Iterator<Var> iterator() {
+            return new Iterator<>() {
+
+                private int next = nextSetBit(0);
+
+                private int last = -1;
+
+                @Override
+                public boolean hasNext() {
+                    return next >= 0;
+                }
+
+                @Override
+                public Var next() {
+                    if (next < 0) {
+                        throw new NoSuchElementException();
+                    }
+                    last = next;
+                    next = nextSetBit(next + 1);
+                    return vars.get(last);
+                }
+
+                @Override
+                public void remove() {
+                    if (last < 0) {
+                        throw new IllegalStateException();
+                    }
+                    words[wordIndex(last)] &= ~(1L << last);
+                    last = -1;
+                }
+            };
+        }
+
+        /**
+         * @return index of the first set bit that occurs on or after
+         * the given index, or -1 if there is no such bit.
+         */
+        private int nextSetBit(int fromIndex) {
+            int i = wordIndex(fromIndex);
+            if (i >= words.length) {
+                return -1;
+            }
+            long word = words[i] & (-1L << fromIndex);
+            while (true) {
+                if (word != 0) {
+                    return (i << 6) + Long.numberOfTrailingZeros(word);
+                }
+                if (++i == words.length) {
+                    return -1;
+                }
+                word = words[i];
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o instanceof VarBitSet other) {
+                long[] shorter = words, longer = other.words;
+                if (shorter.length > longer.length) {
+                    shorter = other.words;
+                    longer = words;
+                }
+                for (int i = 0; i < shorter.length; ++i) {
+                    if (shorter[i] != longer[i]) {
+                        return false;
+                    }
+                }
+                for (int i = shorter.length; i < longer.length; ++i) {
+                    if (longer[i] != 0) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            return super.equals(o);
+        }
+    }
+}
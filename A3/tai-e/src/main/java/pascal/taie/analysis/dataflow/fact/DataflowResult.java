@@ -22,7 +22,13 @@
 
 package pascal.taie.analysis.dataflow.fact;
 
+import pascal.taie.analysis.dataflow.solver.SolverStats;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -37,6 +43,8 @@ public class DataflowResult<Node, Fact> implements NodeResult<Node, Fact> {
 
     private final Map<Node, Fact> outFacts = new LinkedHashMap<>();
 
+    private List<SolverStats> stats = List.of();
+
     /**
      * @return the flowing-in fact of given node.
      */
@@ -66,4 +74,22 @@ public class DataflowResult<Node, Fact> implements NodeResult<Node, Fact> {
     public void setOutFact(Node node, Fact fact) {
         outFacts.put(node, fact);
     }
+
+    /**
+     * @return the statistics of solving the methods covered by this result,
+     * or an empty collection if the instrumentation of the solver is disabled.
+     */
+    public Collection<SolverStats> getStats() {
+        return Collections.unmodifiableList(stats);
+    }
+
+    /**
+     * Adds the statistics of solving a method covered by this result.
+     */
+    public void addStats(SolverStats stats) {
+        if (this.stats.isEmpty()) {
+            this.stats = new ArrayList<>();
+        }
+        this.stats.add(stats);
+    }
 }
@@ -24,16 +24,25 @@ package pascal.taie.analysis.dataflow.fact;
 
 import pascal.taie.util.collection.Maps;
 
+import javax.annotation.Nullable;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.function.BiConsumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
  * Represents map-like data-flow facts.
+ * <p>
+ * Each fact carries a modification stamp, which increases whenever the
+ * content of the fact changes via its methods. A fact remembers the
+ * last fact it was copied from (see {@link #copyFrom(MapFact)}) together
+ * with the stamps of both facts, so that copying again from an unchanged
+ * fact is skipped in constant time instead of comparing all mappings.
  *
  * @param <K> type of keys
  * @param <V> type of values
@@ -45,6 +54,17 @@ public class MapFact<K, V> {
      */
     protected final Map<K, V> map;
 
+    /**
+     * Modification stamp of this fact.
+     */
+    private long stamp;
+
+    /**
+     * The last copy into this fact, or null if there is none.
+     */
+    @Nullable
+    private CopyRecord<K, V> lastCopy;
+
     /**
      * Constructs a new MapFact with the same mappings as specified Map.
      *
@@ -54,6 +74,22 @@ public class MapFact<K, V> {
         this.map = Maps.newHybridMap(map);
     }
 
+    /**
+     * Constructs a new MapFact backed by the map given by the factory.
+     * This allows subclasses to choose the underlying map representation.
+     */
+    protected MapFact(Supplier<Map<K, V>> mapFactory) {
+        this.map = mapFactory.get();
+    }
+
+    /**
+     * @return a new empty MapFact backed by a {@link PersistentMap},
+     * which can be copied in constant time.
+     */
+    public static <K, V> MapFact<K, V> newPersistentMapFact() {
+        return new MapFact<>(PersistentMap::new);
+    }
+
     /**
      * @return the value to which the specified key is mapped,
      * or null if this map contains no mapping for the key.
@@ -68,7 +104,11 @@ public class MapFact<K, V> {
      * @return if the update changes this fact.
      */
     public boolean update(K key, V value) {
-        return !Objects.equals(map.put(key, value), value);
+        boolean changed = !Objects.equals(map.put(key, value), value);
+        if (changed) {
+            markChanged();
+        }
+        return changed;
     }
 
     /**
@@ -78,7 +118,11 @@ public class MapFact<K, V> {
      * or null if there was no mapping for key.
      */
     public V remove(K key) {
-        return map.remove(key);
+        V value = map.remove(key);
+        if (value != null) {
+            markChanged();
+        }
+        return value;
     }
 
     /**
@@ -87,17 +131,78 @@ public class MapFact<K, V> {
      * @return true if this fact changed as a result of the call, otherwise false.
      */
     public boolean copyFrom(MapFact<K, V> fact) {
+        if (isCopiedFrom(fact, null)) {
+            return false;
+        }
         boolean changed = false;
-        for (Map.Entry<K, V> entry : fact.map.entrySet()) {
-            changed |= update(entry.getKey(), entry.getValue());
+        if (map instanceof PersistentMap<K, V> target && target.isEmpty()
+                && fact.map instanceof PersistentMap<K, V> source) {
+            // share the structure of source map
+            target.assign(source);
+            if (!source.isEmpty()) {
+                markChanged();
+                changed = true;
+            }
+        } else {
+            for (Map.Entry<K, V> entry : fact.map.entrySet()) {
+                changed |= update(entry.getKey(), entry.getValue());
+            }
         }
+        recordCopy(fact, null);
         return changed;
     }
 
+    /**
+     * @return the modification stamp of this fact, which increases
+     * whenever the content of this fact changes.
+     */
+    public long getStamp() {
+        return stamp;
+    }
+
+    /**
+     * Increases the stamp of this fact. The subclasses which change
+     * {@link #map} directly must call this method on changes.
+     */
+    protected void markChanged() {
+        ++stamp;
+    }
+
+    /**
+     * @return true if this fact has been copied from given fact
+     * (except the mapping of given key, if not null), and neither fact
+     * has changed since then, thus copying again changes nothing.
+     */
+    protected boolean isCopiedFrom(MapFact<K, V> source, @Nullable K except) {
+        CopyRecord<K, V> copy = lastCopy;
+        return copy != null
+                && copy.source == source
+                && copy.except == except
+                && copy.sourceStamp == source.stamp
+                && copy.targetStamp == stamp;
+    }
+
+    /**
+     * Records that this fact has just been copied from given fact
+     * (except the mapping of given key, if not null).
+     */
+    protected void recordCopy(MapFact<K, V> source, @Nullable K except) {
+        if (lastCopy == null) {
+            lastCopy = new CopyRecord<>();
+        }
+        lastCopy.source = source;
+        lastCopy.except = except;
+        lastCopy.sourceStamp = source.stamp;
+        lastCopy.targetStamp = stamp;
+    }
+
     /**
      * Creates and returns a copy of this fact.
      */
     public MapFact<K, V> copy() {
+        if (map instanceof PersistentMap<K, V> persistent) {
+            return new MapFact<>(() -> new PersistentMap<>(persistent));
+        }
         return new MapFact<>(this.map);
     }
 
@@ -105,21 +210,27 @@ public class MapFact<K, V> {
      * Clears all content in this fact.
      */
     public void clear() {
-        map.clear();
+        if (!map.isEmpty()) {
+            map.clear();
+            markChanged();
+        }
     }
 
     /**
-     * @return a {@link Set} view of the keys contained in this fact.
+     * @return an unmodifiable {@link Set} view of the keys contained
+     * in this fact. This fact can only be changed via its methods,
+     * so that the changes are reflected by its stamp.
      */
     public Set<K> keySet() {
-        return map.keySet();
+        return Collections.unmodifiableSet(map.keySet());
     }
 
     /**
-     * @return all entries (key-value mappings) in this fact.
+     * @return all entries (key-value mappings) in this fact,
+     * which are unmodifiable.
      */
     public Stream<Map.Entry<K, V>> entries() {
-        return map.entrySet().stream();
+        return Collections.unmodifiableMap(map).entrySet().stream();
     }
 
     /**
@@ -160,4 +271,15 @@ public class MapFact<K, V> {
                 .map(e -> e.getKey() + "=" + e.getValue())
                 .collect(Collectors.joining(", ")) + "}";
     }
+
+    private static class CopyRecord<K, V> {
+
+        private MapFact<K, V> source;
+
+        private K except;
+
+        private long sourceStamp;
+
+        private long targetStamp;
+    }
 }
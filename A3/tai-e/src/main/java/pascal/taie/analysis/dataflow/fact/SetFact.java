@@ -25,14 +25,23 @@ package pascal.taie.analysis.dataflow.fact;
 import pascal.taie.util.collection.CollectionUtils;
 import pascal.taie.util.collection.Sets;
 
+import javax.annotation.Nullable;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Set;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 
 /**
  * Represents set-like data-flow facts.
+ * <p>
+ * Each fact carries a modification stamp, which increases whenever the
+ * content of the fact changes via its methods. A fact remembers the
+ * source fact and the stamps of the last
+ * {@link #setToGenKill(SetFact, SetFact, SetFact)} on it, so that
+ * re-applying the transfer function to an unchanged source is skipped
+ * in constant time.
  *
  * @param <E> type of elements
  */
@@ -40,6 +49,22 @@ public class SetFact<E> {
 
     protected final Set<E> set;
 
+    /**
+     * Modification stamp of this fact.
+     */
+    private long stamp;
+
+    /**
+     * Source fact of the last gen/kill transfer on this fact,
+     * or null if there is none.
+     */
+    @Nullable
+    private SetFact<E> lastSource;
+
+    private long lastSourceStamp;
+
+    private long lastStamp;
+
     public SetFact(Collection<E> c) {
         set = Sets.newHybridSet(c);
     }
@@ -48,6 +73,14 @@ public class SetFact<E> {
         this(Collections.emptySet());
     }
 
+    /**
+     * Constructs a new fact backed by the set given by the factory.
+     * This allows subclasses to choose the underlying set representation.
+     */
+    protected SetFact(Supplier<Set<E>> setFactory) {
+        set = setFactory.get();
+    }
+
     /**
      * @return true if this set contains the specified element, otherwise false.
      */
@@ -61,7 +94,7 @@ public class SetFact<E> {
      * @return true if this fact changed as a result of the call, otherwise false.
      */
     public boolean add(E e) {
-        return set.add(e);
+        return markChanged(set.add(e));
     }
 
     /**
@@ -70,7 +103,7 @@ public class SetFact<E> {
      * @return true if an element was removed as a result of the call, otherwise false.
      */
     public boolean remove(E e) {
-        return set.remove(e);
+        return markChanged(set.remove(e));
     }
 
     /**
@@ -80,7 +113,7 @@ public class SetFact<E> {
      * otherwise false.
      */
     public boolean removeIf(Predicate<E> filter) {
-        return set.removeIf(filter);
+        return markChanged(set.removeIf(filter));
     }
 
     /**
@@ -89,7 +122,7 @@ public class SetFact<E> {
      * @return true if this fact changed as a result of the call, otherwise false.
      */
     public boolean union(SetFact<E> other) {
-        return set.addAll(other.set);
+        return markChanged(set.addAll(other.set));
     }
 
     /**
@@ -107,7 +140,7 @@ public class SetFact<E> {
      * @return true if this fact changed as a result of the call, otherwise false.
      */
     public boolean intersect(SetFact<E> other) {
-        return set.retainAll(other.set);
+        return markChanged(set.retainAll(other.set));
     }
 
     /**
@@ -119,6 +152,57 @@ public class SetFact<E> {
         return result;
     }
 
+    /**
+     * Removes all elements of other fact from this fact.
+     *
+     * @return true if this fact changed as a result of the call, otherwise false.
+     */
+    public boolean removeAll(SetFact<E> other) {
+        return markChanged(set.removeAll(other.set));
+    }
+
+    /**
+     * Sets the content of this fact to {@code gen ∪ (source − kill)},
+     * i.e., the result of a gen/kill transfer function on source fact.
+     * <p>
+     * The gen and kill sets of a fact are assumed to be the same every
+     * time, which holds for the out (in) fact of a node in forward
+     * (backward) analysis. Then the call is skipped if it has the same
+     * source as the last call, and neither fact has changed since then.
+     *
+     * @return true if this fact changed as a result of the call, otherwise false.
+     */
+    public final boolean setToGenKill(SetFact<E> gen, SetFact<E> source, SetFact<E> kill) {
+        if (lastSource == source && lastSourceStamp == source.stamp
+                && lastStamp == stamp) {
+            return false;
+        }
+        boolean changed = markChanged(doSetToGenKill(gen, source, kill));
+        lastSource = source;
+        lastSourceStamp = source.stamp;
+        lastStamp = stamp;
+        return changed;
+    }
+
+    /**
+     * Performs {@link #setToGenKill(SetFact, SetFact, SetFact)} on the
+     * underlying sets. Subclasses may override this with a faster
+     * implementation for their representations.
+     *
+     * @return true if {@link #set} changed as a result of the call.
+     */
+    protected boolean doSetToGenKill(SetFact<E> gen, SetFact<E> source, SetFact<E> kill) {
+        Set<E> result = Sets.newHybridSet(source.set);
+        result.removeAll(kill.set);
+        result.addAll(gen.set);
+        if (set.equals(result)) {
+            return false;
+        }
+        set.clear();
+        set.addAll(result);
+        return true;
+    }
+
     /**
      * Sets the content of this set to the same as other set.
      */
@@ -138,7 +222,30 @@ public class SetFact<E> {
      * Clears all content in this fact.
      */
     public void clear() {
-        set.clear();
+        if (!set.isEmpty()) {
+            set.clear();
+            ++stamp;
+        }
+    }
+
+    /**
+     * @return the modification stamp of this fact, which increases
+     * whenever the content of this fact changes.
+     */
+    public long getStamp() {
+        return stamp;
+    }
+
+    /**
+     * Increases the stamp of this fact if it changed.
+     *
+     * @return the given {@code changed}.
+     */
+    private boolean markChanged(boolean changed) {
+        if (changed) {
+            ++stamp;
+        }
+        return changed;
     }
 
     public boolean isEmpty() {
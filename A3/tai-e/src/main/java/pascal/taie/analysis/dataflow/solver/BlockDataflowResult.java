@@ -0,0 +1,193 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.BasicBlock;
+import pascal.taie.analysis.graph.cfg.BlockCFG;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Statement-level view of the result of {@link BlockSolver}.
+ * When the fact of a statement is queried, the facts of all statements
+ * in its block are re-derived by replaying the block from its in (out)
+ * fact in forward (backward) analysis.
+ * <p>
+ * This result has two storage modes:
+ * <ul>
+ *     <li>full: the facts at both boundaries of each block are kept,
+ *     and the re-derived facts are stored in this result, so that each
+ *     block is replayed at most once.</li>
+ *     <li>boundary: only the in (out) facts of the blocks are kept in
+ *     forward (backward) analysis, i.e., the facts at join points and
+ *     block entries, and the re-derived facts are kept in a bounded
+ *     cache of recently replayed blocks, so that the memory for the facts
+ *     of other statements can be reclaimed.</li>
+ * </ul>
+ * Note that the out (in) fact of a statement is the same object as the
+ * in (out) fact of its successor (predecessor) in the block, so the
+ * client code should not modify the facts in this result.
+ */
+class BlockDataflowResult<Fact> extends DataflowResult<Stmt, Fact> {
+
+    /**
+     * Maximum number of replayed blocks kept in boundary mode.
+     */
+    private static final int CACHE_SIZE = 64;
+
+    private final DataflowAnalysis<Stmt, Fact> analysis;
+
+    private final BlockCFG blockCFG;
+
+    /**
+     * Facts where the flow enters the blocks, i.e., in (out) facts
+     * in forward (backward) analysis, indexed by the blocks.
+     */
+    private final Fact[] entryFacts;
+
+    /**
+     * Facts where the flow leaves the blocks, which is null in
+     * boundary mode.
+     */
+    private final Fact[] exitFacts;
+
+    /**
+     * Cache of the facts of recently replayed blocks, which is null
+     * in full mode.
+     */
+    private final Map<BasicBlock, DataflowResult<Stmt, Fact>> cache;
+
+    @SuppressWarnings("unchecked")
+    BlockDataflowResult(DataflowAnalysis<Stmt, Fact> analysis, BlockCFG blockCFG,
+                        DataflowResult<BasicBlock, Fact> blockResult,
+                        boolean boundaryOnly) {
+        this.analysis = analysis;
+        this.blockCFG = blockCFG;
+        int n = blockCFG.getNumberOfNodes();
+        entryFacts = (Fact[]) new Object[n];
+        exitFacts = boundaryOnly ? null : (Fact[]) new Object[n];
+        boolean forward = analysis.isForward();
+        for (BasicBlock block : blockCFG) {
+            int i = block.getIndex();
+            entryFacts[i] = forward ?
+                    blockResult.getInFact(block) : blockResult.getOutFact(block);
+            if (exitFacts != null) {
+                exitFacts[i] = forward ?
+                        blockResult.getOutFact(block) : blockResult.getInFact(block);
+            }
+        }
+        cache = boundaryOnly ? new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(
+                    Map.Entry<BasicBlock, DataflowResult<Stmt, Fact>> eldest) {
+                return size() > CACHE_SIZE;
+            }
+        } : null;
+    }
+
+    @Override
+    public Fact getInFact(Stmt stmt) {
+        DataflowResult<Stmt, Fact> facts = getFactsOf(stmt);
+        return facts == this ? super.getInFact(stmt) :
+                facts == null ? null : facts.getInFact(stmt);
+    }
+
+    @Override
+    public Fact getOutFact(Stmt stmt) {
+        DataflowResult<Stmt, Fact> facts = getFactsOf(stmt);
+        return facts == this ? super.getOutFact(stmt) :
+                facts == null ? null : facts.getOutFact(stmt);
+    }
+
+    /**
+     * @return the result which holds the facts of given statement
+     * (re-deriving the facts if necessary), or null if the statement
+     * is not in the CFG.
+     */
+    private DataflowResult<Stmt, Fact> getFactsOf(Stmt stmt) {
+        if (cache == null && super.getInFact(stmt) != null) {
+            return this;
+        }
+        BasicBlock block = blockCFG.getBlockOf(stmt);
+        if (block == null) {
+            return null;
+        }
+        if (cache == null) {
+            replay(block, this);
+            return this;
+        }
+        DataflowResult<Stmt, Fact> facts = cache.get(block);
+        if (facts == null) {
+            facts = new DataflowResult<>();
+            replay(block, facts);
+            cache.put(block, facts);
+        }
+        return facts;
+    }
+
+    /**
+     * Re-derives the facts of the statements in given block,
+     * and stores them in {@code facts}.
+     */
+    private void replay(BasicBlock block, DataflowResult<Stmt, Fact> facts) {
+        List<Stmt> stmts = block.getStmts();
+        int last = stmts.size() - 1;
+        Fact fact = entryFacts[block.getIndex()];
+        Fact exitFact = exitFacts != null ? exitFacts[block.getIndex()] : null;
+        if (analysis.isForward()) {
+            for (int i = 0; i <= last; ++i) {
+                Stmt s = stmts.get(i);
+                Fact next;
+                if (i == last && exitFact != null) {
+                    next = exitFact;
+                } else {
+                    next = analysis.newInitialFact();
+                    analysis.transferNode(s, fact, next);
+                }
+                facts.setInFact(s, fact);
+                facts.setOutFact(s, next);
+                fact = next;
+            }
+        } else {
+            for (int i = last; i >= 0; --i) {
+                Stmt s = stmts.get(i);
+                Fact next;
+                if (i == 0 && exitFact != null) {
+                    next = exitFact;
+                } else {
+                    next = analysis.newInitialFact();
+                    analysis.transferNode(s, next, fact);
+                }
+                facts.setOutFact(s, fact);
+                facts.setInFact(s, next);
+                fact = next;
+            }
+        }
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.analysis.GenKillAnalysis;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.SetFact;
+import pascal.taie.analysis.graph.cfg.BasicBlock;
+import pascal.taie.analysis.graph.cfg.BlockCFG;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Solver which iterates over the basic blocks of the CFG instead of
+ * the statements. The transfer function of a block is the composition
+ * of the transfer functions of its statements, thus the solver only
+ * keeps the facts at block boundaries, and the facts of the statements
+ * inside a block are re-derived from the block facts on demand
+ * (see {@link BlockDataflowResult}).
+ * <p>
+ * In boundary mode, only the facts at block entries are kept in the
+ * result, which reduces the memory footprint of the result at the cost
+ * of replaying blocks for repeated queries.
+ * <p>
+ * For {@link GenKillAnalysis}, the transfer function of each block is
+ * summarized into a single gen/kill function before solving, so that
+ * a block is transferred in one step, regardless of its size.
+ * <p>
+ * The blocks are solved by an ordinary solver, which is obtained from
+ * {@link Solver#makeSolver(DataflowAnalysis, String)}.
+ */
+class BlockSolver<Fact> implements DataflowSolver<Stmt, Fact> {
+
+    private final DataflowAnalysis<Stmt, Fact> analysis;
+
+    private final String kind;
+
+    private final boolean boundaryOnly;
+
+    private final LongAdder nodeVisits = new LongAdder();
+
+    BlockSolver(DataflowAnalysis<Stmt, Fact> analysis, String kind,
+                boolean boundaryOnly) {
+        this.analysis = analysis;
+        // fail fast if the kind is unknown
+        Solver.makeSolver(new BlockAnalysis<>(analysis), kind);
+        this.kind = kind;
+        this.boundaryOnly = boundaryOnly;
+    }
+
+    @Override
+    public DataflowResult<Stmt, Fact> solve(CFG<Stmt> cfg) {
+        BlockCFG blockCFG = BlockCFG.of(cfg);
+        // the block analysis may hold per-CFG summaries, thus the
+        // block solver is created for each CFG
+        Solver<BasicBlock, Fact> blockSolver;
+        DataflowAnalysis<Stmt, Fact> stmtAnalysis;
+        if (analysis instanceof InstrumentedSolver.CountingAnalysis<Stmt, Fact> counting) {
+            // count on the blocks, which are what this solver iterates
+            stmtAnalysis = counting.getAnalysis();
+            blockSolver = Solver.makeSolver(new InstrumentedSolver.CountingAnalysis<>(
+                    newBlockAnalysis(stmtAnalysis, blockCFG), counting.getStats()), kind);
+        } else {
+            stmtAnalysis = analysis;
+            blockSolver = Solver.makeSolver(newBlockAnalysis(analysis, blockCFG), kind);
+        }
+        DataflowResult<BasicBlock, Fact> blockResult = blockSolver.solve(blockCFG);
+        nodeVisits.add(blockSolver.getNodeVisits());
+        return new BlockDataflowResult<>(stmtAnalysis, blockCFG,
+                blockResult, boundaryOnly);
+    }
+
+    @Override
+    public long getNodeVisits() {
+        return nodeVisits.sum();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <Fact> BlockAnalysis<Fact> newBlockAnalysis(
+            DataflowAnalysis<Stmt, Fact> analysis, BlockCFG blockCFG) {
+        if (analysis instanceof GenKillAnalysis<?> genKill) {
+            return (BlockAnalysis<Fact>) new GenKillBlockAnalysis<>(genKill, blockCFG);
+        }
+        return new BlockAnalysis<>(analysis);
+    }
+
+    /**
+     * Lifts a statement-level analysis to basic blocks.
+     */
+    private static class BlockAnalysis<Fact>
+            implements DataflowAnalysis<BasicBlock, Fact> {
+
+        private final DataflowAnalysis<Stmt, Fact> analysis;
+
+        private BlockAnalysis(DataflowAnalysis<Stmt, Fact> analysis) {
+            this.analysis = analysis;
+        }
+
+        @Override
+        public boolean isForward() {
+            return analysis.isForward();
+        }
+
+        @Override
+        public Fact newBoundaryFact(CFG<BasicBlock> cfg) {
+            return analysis.newBoundaryFact(((BlockCFG) cfg).getStmtCFG());
+        }
+
+        @Override
+        public Fact newInitialFact() {
+            return analysis.newInitialFact();
+        }
+
+        @Override
+        public void meetInto(Fact fact, Fact target) {
+            analysis.meetInto(fact, target);
+        }
+
+        /**
+         * Transfers the fact through the statements of given block.
+         * The intermediate facts are fresh ones, and only the transfer
+         * of the last (first) statement in forward (backward) analysis
+         * is applied on the out (in) fact of the block, which decides
+         * whether the block fact is changed.
+         */
+        @Override
+        public boolean transferNode(BasicBlock block, Fact in, Fact out) {
+            List<Stmt> stmts = block.getStmts();
+            int last = stmts.size() - 1;
+            if (analysis.isForward()) {
+                Fact fact = in;
+                for (int i = 0; i < last; ++i) {
+                    Fact next = analysis.newInitialFact();
+                    analysis.transferNode(stmts.get(i), fact, next);
+                    fact = next;
+                }
+                return analysis.transferNode(stmts.get(last), fact, out);
+            } else {
+                Fact fact = out;
+                for (int i = last; i > 0; --i) {
+                    Fact next = analysis.newInitialFact();
+                    analysis.transferNode(stmts.get(i), next, fact);
+                    fact = next;
+                }
+                return analysis.transferNode(stmts.get(0), in, fact);
+            }
+        }
+
+        @Override
+        public boolean needTransferEdge(Edge<BasicBlock> edge) {
+            return false;
+        }
+
+        @Override
+        public Fact transferEdge(Edge<BasicBlock> edge, Fact nodeFact) {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * The flowing-in (out) fact of a block is the one of its first
+         * (last) statement in forward (backward) analysis, which is
+         * thus regarded as the head for widening.
+         */
+        private Stmt getHead(BasicBlock block) {
+            return analysis.isForward() ? block.getFirst() : block.getLast();
+        }
+
+        @Override
+        public boolean needWidening(BasicBlock head) {
+            return analysis.needWidening(getHead(head));
+        }
+
+        @Override
+        public void widen(BasicBlock head, Fact previous, Fact fact) {
+            analysis.widen(getHead(head), previous, fact);
+        }
+    }
+
+    /**
+     * Lifts a gen/kill analysis to basic blocks, which transfers each
+     * block by its precomputed summary.
+     */
+    private static class GenKillBlockAnalysis<E> extends BlockAnalysis<SetFact<E>> {
+
+        private final GenKillAnalysis.Summary<E>[] summaries;
+
+        @SuppressWarnings("unchecked")
+        private GenKillBlockAnalysis(GenKillAnalysis<E> analysis, BlockCFG blockCFG) {
+            super(analysis);
+            summaries = (GenKillAnalysis.Summary<E>[])
+                    new GenKillAnalysis.Summary<?>[blockCFG.getNumberOfNodes()];
+            for (BasicBlock block : blockCFG) {
+                summaries[block.getIndex()] = analysis.summarize(block.getStmts());
+            }
+        }
+
+        @Override
+        public boolean transferNode(BasicBlock block, SetFact<E> in, SetFact<E> out) {
+            GenKillAnalysis.Summary<E> summary = summaries[block.getIndex()];
+            return isForward() ?
+                    summary.apply(in, out) : summary.apply(out, in);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.Edge;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Solver which collects {@link SolverStats} for each solved CFG.
+ * <p>
+ * For each CFG, this solver creates a fresh underlying solver on an
+ * analysis which counts the calls to {@code meetInto} and {@code transferNode},
+ * so that the statistics of the methods solved in parallel are kept apart.
+ * The solvers which are not wrapped by this solver do not pay for
+ * the instrumentation, except for a null check per node visit.
+ */
+class InstrumentedSolver<Node, Fact> implements DataflowSolver<Node, Fact> {
+
+    private final DataflowAnalysis<Node, Fact> analysis;
+
+    private final Function<DataflowAnalysis<Node, Fact>, DataflowSolver<Node, Fact>> factory;
+
+    @Nullable
+    private final SolverStatsDumper dumper;
+
+    private final LongAdder nodeVisits = new LongAdder();
+
+    InstrumentedSolver(DataflowAnalysis<Node, Fact> analysis,
+                       Function<DataflowAnalysis<Node, Fact>, DataflowSolver<Node, Fact>> factory,
+                       @Nullable SolverStatsDumper dumper) {
+        this.analysis = analysis;
+        // fail fast if the solver cannot be created
+        factory.apply(analysis);
+        this.factory = factory;
+        this.dumper = dumper;
+    }
+
+    @Override
+    public DataflowResult<Node, Fact> solve(CFG<Node> cfg) {
+        SolverStats stats = new SolverStats(cfg.getMethod());
+        DataflowSolver<Node, Fact> solver = factory.apply(
+                new CountingAnalysis<>(analysis, stats));
+        long start = System.nanoTime();
+        DataflowResult<Node, Fact> result = solver.solve(cfg);
+        stats.addElapsedNanos(System.nanoTime() - start);
+        stats.addNodeVisits(solver.getNodeVisits());
+        nodeVisits.add(solver.getNodeVisits());
+        for (Node node : cfg) {
+            stats.addFact(analysis.isForward() ?
+                    result.getOutFact(node) : result.getInFact(node));
+        }
+        result.addStats(stats);
+        if (dumper != null) {
+            dumper.dump(stats);
+        }
+        return result;
+    }
+
+    @Override
+    public long getNodeVisits() {
+        return nodeVisits.sum();
+    }
+
+    /**
+     * Delegates to an analysis, and counts the meets and the changing
+     * transfers of the analysis in the statistics.
+     */
+    static class CountingAnalysis<Node, Fact>
+            implements DataflowAnalysis<Node, Fact> {
+
+        private final DataflowAnalysis<Node, Fact> analysis;
+
+        private final SolverStats stats;
+
+        CountingAnalysis(DataflowAnalysis<Node, Fact> analysis, SolverStats stats) {
+            this.analysis = analysis;
+            this.stats = stats;
+        }
+
+        DataflowAnalysis<Node, Fact> getAnalysis() {
+            return analysis;
+        }
+
+        SolverStats getStats() {
+            return stats;
+        }
+
+        @Override
+        public boolean isForward() {
+            return analysis.isForward();
+        }
+
+        @Override
+        public Fact newBoundaryFact(CFG<Node> cfg) {
+            return analysis.newBoundaryFact(cfg);
+        }
+
+        @Override
+        public Fact newInitialFact() {
+            return analysis.newInitialFact();
+        }
+
+        @Override
+        public void meetInto(Fact fact, Fact target) {
+            stats.addMeet();
+            analysis.meetInto(fact, target);
+        }
+
+        @Override
+        public boolean transferNode(Node node, Fact in, Fact out) {
+            boolean changed = analysis.transferNode(node, in, out);
+            if (changed) {
+                stats.addChange();
+            }
+            return changed;
+        }
+
+        @Override
+        public boolean needTransferEdge(Edge<Node> edge) {
+            return analysis.needTransferEdge(edge);
+        }
+
+        @Override
+        public Fact transferEdge(Edge<Node> edge, Fact nodeFact) {
+            return analysis.transferEdge(edge, nodeFact);
+        }
+
+        @Override
+        public boolean needWidening(Node head) {
+            return analysis.needWidening(head);
+        }
+
+        @Override
+        public void widen(Node head, Fact previous, Fact fact) {
+            analysis.widen(head, previous, fact);
+        }
+    }
+}
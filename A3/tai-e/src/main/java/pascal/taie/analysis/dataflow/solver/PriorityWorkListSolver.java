@@ -0,0 +1,345 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CSRCFG;
+import pascal.taie.util.graph.CSRGraph;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Set;
+
+/**
+ * Work-list solver which processes nodes in a fixed priority order.
+ * <p>
+ * Before solving, the nodes of the CFG are numbered by a depth-first
+ * traversal from the entry node: in reverse postorder for forward
+ * analyses, and in postorder for backward analyses. The work-list is
+ * a binary heap keyed by these numbers, so that a node is (in the absence
+ * of loops) processed after all of its predecessors (successors), and a
+ * {@link BitSet} records which nodes are currently in the work-list,
+ * thus both enqueueing and membership test take (at most) logarithmic
+ * time, regardless of the size of the CFG.
+ * <p>
+ * The solver traverses the {@link CSRGraph} snapshot of the CFG
+ * (see {@link CSRCFG}), which stores the predecessors and successors of
+ * all nodes in flat arrays. As the snapshot keeps one entry per edge,
+ * a node with multiple edges to the same node (e.g., several cases of
+ * a switch with the same target) meets the same fact more than once,
+ * which is harmless as meet is idempotent.
+ */
+class PriorityWorkListSolver<Node, Fact> extends Solver<Node, Fact> {
+
+    PriorityWorkListSolver(DataflowAnalysis<Node, Fact> analysis) {
+        super(analysis);
+    }
+
+    @Override
+    protected void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        CSRGraph<Node> graph = CSRCFG.of(cfg);
+        solveForward(graph, result, new NodeOrder(graph, cfg, null, true));
+    }
+
+    @Override
+    protected void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        CSRGraph<Node> graph = CSRCFG.of(cfg);
+        solveBackward(graph, result, new NodeOrder(graph, cfg, null, false));
+    }
+
+    @Override
+    protected void doResolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result,
+                                    Set<Node> nodes) {
+        CSRGraph<Node> graph = CSRCFG.of(cfg);
+        solveForward(graph, result, new NodeOrder(graph, cfg, nodes, true));
+    }
+
+    @Override
+    protected void doResolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result,
+                                     Set<Node> nodes) {
+        CSRGraph<Node> graph = CSRCFG.of(cfg);
+        solveBackward(graph, result, new NodeOrder(graph, cfg, nodes, false));
+    }
+
+    /**
+     * Solves the facts of the nodes in given order, which are closed
+     * under successors, for forward analysis.
+     */
+    private void solveForward(CSRGraph<Node> graph, DataflowResult<Node, Fact> result,
+                              NodeOrder order) {
+        WorkList workList = new WorkList(order.size());
+        workList.addAll();
+
+        while (!workList.isEmpty()) {
+            if (stats != null) {
+                stats.updateWorkListSize(workList.size);
+            }
+            int id = order.getId(workList.poll());
+            Node node = graph.getNode(id);
+            nodeVisits.increment();
+
+            Fact inFact = result.getInFact(node);
+            for (int k = graph.getPredStart(id), end = graph.getPredEnd(id);
+                 k < end; ++k) {
+                analysis.meetInto(result.getOutFact(graph.getNode(graph.getPred(k))), inFact);
+            }
+
+            Fact outFact = result.getOutFact(node);
+            if (analysis.transferNode(node, inFact, outFact)) {
+                for (int k = graph.getSuccStart(id), end = graph.getSuccEnd(id);
+                     k < end; ++k) {
+                    workList.add(order.getIndex(graph.getSucc(k)));
+                }
+            }
+        }
+    }
+
+    /**
+     * Solves the facts of the nodes in given order, which are closed
+     * under predecessors, for backward analysis.
+     */
+    private void solveBackward(CSRGraph<Node> graph, DataflowResult<Node, Fact> result,
+                               NodeOrder order) {
+        WorkList workList = new WorkList(order.size());
+        workList.addAll();
+
+        while (!workList.isEmpty()) {
+            if (stats != null) {
+                stats.updateWorkListSize(workList.size);
+            }
+            int id = order.getId(workList.poll());
+            Node node = graph.getNode(id);
+            nodeVisits.increment();
+
+            Fact outFact = result.getOutFact(node);
+            for (int k = graph.getSuccStart(id), end = graph.getSuccEnd(id);
+                 k < end; ++k) {
+                analysis.meetInto(result.getInFact(graph.getNode(graph.getSucc(k))), outFact);
+            }
+
+            Fact inFact = result.getInFact(node);
+            if (analysis.transferNode(node, inFact, outFact)) {
+                for (int k = graph.getPredStart(id), end = graph.getPredEnd(id);
+                     k < end; ++k) {
+                    workList.add(order.getIndex(graph.getPred(k)));
+                }
+            }
+        }
+    }
+
+    /**
+     * Numbering of CFG nodes in (reverse) postorder, which maps between
+     * the ids of the nodes in the {@link CSRGraph} and their indexes
+     * in the order.
+     */
+    private static class NodeOrder {
+
+        /**
+         * Index of each node id, or -1 if the node is not numbered.
+         */
+        private final int[] indexes;
+
+        /**
+         * Node id of each index.
+         */
+        private final int[] ids;
+
+        /**
+         * Ids of the nodes to be numbered, or null if all nodes
+         * of the CFG are numbered.
+         */
+        @Nullable
+        private final BitSet scope;
+
+        /**
+         * @param scope   the nodes to be numbered,
+         *                or null for all nodes of the CFG.
+         * @param reverse if true, numbers the nodes in reverse postorder,
+         *                otherwise in postorder.
+         */
+        private <Node> NodeOrder(CSRGraph<Node> graph, CFG<Node> cfg,
+                                 @Nullable Set<Node> scope, boolean reverse) {
+            int numberOfNodes = graph.getNumberOfNodes();
+            if (scope != null) {
+                this.scope = new BitSet(numberOfNodes);
+                scope.forEach(node -> this.scope.set(graph.getId(node)));
+            } else {
+                this.scope = null;
+            }
+            int n = scope != null ? scope.size() : numberOfNodes;
+            indexes = new int[numberOfNodes];
+            Arrays.fill(indexes, -1);
+            ids = new int[n];
+            // number the nodes reachable from entry first, then the
+            // remaining ones (e.g., dead code), so that every node of
+            // the CFG obtains an index.
+            int[] stack = new int[numberOfNodes];
+            int[] cursors = new int[numberOfNodes];
+            int counter = 0;
+            int entry = graph.getId(cfg.getEntry());
+            if (inScope(entry)) {
+                counter = visit(graph, entry, counter, stack, cursors);
+            }
+            for (int id = 0; id < numberOfNodes; ++id) {
+                if (indexes[id] == -1 && inScope(id)) {
+                    counter = visit(graph, id, counter, stack, cursors);
+                }
+            }
+            if (reverse) {
+                for (int i = 0, j = n - 1; i < j; ++i, --j) {
+                    int tmp = ids[i];
+                    ids[i] = ids[j];
+                    ids[j] = tmp;
+                }
+                for (int i = 0; i < n; ++i) {
+                    indexes[ids[i]] = i;
+                }
+            }
+        }
+
+        /**
+         * Iterative depth-first traversal from given root, which assigns
+         * postorder numbers to the newly visited nodes. We avoid recursion
+         * as CFGs of large methods may be very deep.
+         *
+         * @return the next postorder number after the traversal.
+         */
+        private int visit(CSRGraph<?> graph, int root, int counter,
+                          int[] stack, int[] cursors) {
+            int top = 0;
+            indexes[root] = Integer.MAX_VALUE; // mark as visited
+            stack[0] = root;
+            cursors[0] = graph.getSuccStart(root);
+            while (top >= 0) {
+                int id = stack[top];
+                if (cursors[top] < graph.getSuccEnd(id)) {
+                    int succ = graph.getSucc(cursors[top]++);
+                    if (indexes[succ] == -1 && inScope(succ)) {
+                        indexes[succ] = Integer.MAX_VALUE;
+                        stack[++top] = succ;
+                        cursors[top] = graph.getSuccStart(succ);
+                    }
+                } else {
+                    --top;
+                    indexes[id] = counter;
+                    ids[counter++] = id;
+                }
+            }
+            return counter;
+        }
+
+        private boolean inScope(int id) {
+            return scope == null || scope.get(id);
+        }
+
+        private int size() {
+            return ids.length;
+        }
+
+        private int getIndex(int id) {
+            return indexes[id];
+        }
+
+        private int getId(int index) {
+            return ids[index];
+        }
+    }
+
+    /**
+     * Work-list of node indexes, which always polls the smallest index.
+     * It is implemented as a binary min-heap over primitive ints,
+     * together with a {@link BitSet} for constant-time membership test.
+     */
+    private static class WorkList {
+
+        private final BitSet inList;
+
+        private final int[] heap;
+
+        private int size = 0;
+
+        private WorkList(int capacity) {
+            inList = new BitSet(capacity);
+            heap = new int[capacity];
+        }
+
+        /**
+         * Adds all indexes to this work-list. As the indexes are added
+         * in ascending order, the resulting array is already a valid heap.
+         */
+        private void addAll() {
+            for (int i = 0; i < heap.length; ++i) {
+                heap[i] = i;
+            }
+            size = heap.length;
+            inList.set(0, heap.length);
+        }
+
+        private void add(int index) {
+            if (inList.get(index)) {
+                return;
+            }
+            inList.set(index);
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (heap[parent] <= index) {
+                    break;
+                }
+                heap[i] = heap[parent];
+                i = parent;
+            }
+            heap[i] = index;
+        }
+
+        private int poll() {
+            int min = heap[0];
+            inList.clear(min);
+            int last = heap[--size];
+            int i = 0;
+            int half = size >>> 1;
+            while (i < half) {
+                int child = 2 * i + 1;
+                int right = child + 1;
+                if (right < size && heap[right] < heap[child]) {
+                    child = right;
+                }
+                if (last <= heap[child]) {
+                    break;
+                }
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = last;
+            return min;
+        }
+
+        private boolean isEmpty() {
+            return size == 0;
+        }
+    }
+}
@@ -25,6 +25,21 @@ package pascal.taie.analysis.dataflow.solver;
 import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
 import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.config.ConfigException;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.util.collection.SetQueue;
+import pascal.taie.util.graph.Edge;
+
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
 
 /**
  * Base class for data-flow analysis solver, which provides common
@@ -33,12 +48,30 @@ import pascal.taie.analysis.graph.cfg.CFG;
  * @param <Node> type of CFG nodes
  * @param <Fact> type of data-flow facts
  */
-public abstract class Solver<Node, Fact> {
+public abstract class Solver<Node, Fact> implements DataflowSolver<Node, Fact> {
 
     protected final DataflowAnalysis<Node, Fact> analysis;
 
+    /**
+     * Number of nodes visited (i.e., polled from the work-list and
+     * transferred) by this solver, accumulated over all solved CFGs.
+     * As the methods are analyzed in parallel, this counter may be
+     * updated by multiple threads.
+     */
+    protected final LongAdder nodeVisits = new LongAdder();
+
+    /**
+     * Statistics of the CFG being solved, which is only available on the
+     * solvers created by {@link InstrumentedSolver} for a single CFG, and is
+     * null otherwise. The work-list solvers record the work-list sizes here.
+     */
+    @Nullable
+    final SolverStats stats;
+
     protected Solver(DataflowAnalysis<Node, Fact> analysis) {
         this.analysis = analysis;
+        this.stats = analysis instanceof InstrumentedSolver.CountingAnalysis<Node, Fact> counting ?
+                counting.getStats() : null;
     }
 
     /**
@@ -46,21 +79,189 @@ public abstract class Solver<Node, Fact> {
      */
     public static <Node, Fact> Solver<Node, Fact> makeSolver(
             DataflowAnalysis<Node, Fact> analysis) {
-        return new WorkListSolver<>(analysis);
+        return makeSolver(analysis, null);
+    }
+
+    /**
+     * Static factory method to create a new solver of given kind
+     * for given analysis.
+     *
+     * @param kind kind of the solver, which can be "priority",
+     *             i.e., work-list solver that processes nodes in
+     *             (reverse) postorder, "worklist" (default), i.e., FIFO
+     *             work-list solver, or "wto", i.e., solver that
+     *             iterates over the weak topological order of the CFG.
+     * @throws ConfigException if the given kind is unknown
+     */
+    public static <Node, Fact> Solver<Node, Fact> makeSolver(
+            DataflowAnalysis<Node, Fact> analysis, @Nullable String kind) {
+        if (kind == null) {
+            kind = "worklist";
+        }
+        return switch (kind) {
+            case "priority" -> new PriorityWorkListSolver<>(analysis);
+            case "worklist" -> new WorkListSolver<>(analysis);
+            case "wto" -> new WTOSolver<>(analysis);
+            default -> throw new ConfigException("Unknown solver: " + kind);
+        };
+    }
+
+    /**
+     * Static factory method to create a new solver for given analysis,
+     * which solves the analysis on basic blocks instead of statements.
+     *
+     * @param kind    kind of the solver for the blocks,
+     *                see {@link #makeSolver(DataflowAnalysis, String)}.
+     * @param storage storage mode of the result, which can be "full"
+     *                (default), i.e., keeping the facts of all statements
+     *                once they are computed, or "boundary", i.e., keeping
+     *                only the facts at block entries, and re-computing
+     *                the facts of other statements when queried.
+     * @throws ConfigException if the given kind or storage is unknown
+     */
+    public static <Fact> DataflowSolver<Stmt, Fact> makeBlockSolver(
+            DataflowAnalysis<Stmt, Fact> analysis,
+            @Nullable String kind, @Nullable String storage) {
+        if (storage == null) {
+            storage = "full";
+        }
+        return switch (storage) {
+            case "full" -> new BlockSolver<>(analysis, kind, false);
+            case "boundary" -> new BlockSolver<>(analysis, kind, true);
+            default -> throw new ConfigException("Unknown storage: " + storage);
+        };
     }
 
     /**
-     * Starts this solver on the given CFG.
+     * Static factory method to create a new solver which collects
+     * {@link SolverStats} of each solved CFG in its result
+     * (see {@link DataflowResult#getStats()}).
      *
-     * @param cfg control-flow graph where the analysis is performed on
-     * @return the analysis result
+     * @param factory  creates the underlying solver for given analysis
+     * @param dumpFile the file to dump the statistics, or null if
+     *                 the statistics are not dumped.
      */
+    public static <Node, Fact> DataflowSolver<Node, Fact> makeInstrumentedSolver(
+            DataflowAnalysis<Node, Fact> analysis,
+            Function<DataflowAnalysis<Node, Fact>, DataflowSolver<Node, Fact>> factory,
+            @Nullable String dumpFile) {
+        return new InstrumentedSolver<>(analysis, factory,
+                dumpFile != null ? new SolverStatsDumper(dumpFile) : null);
+    }
+
+    @Override
+    public long getNodeVisits() {
+        return nodeVisits.sum();
+    }
+
+    @Override
     public DataflowResult<Node, Fact> solve(CFG<Node> cfg) {
         DataflowResult<Node, Fact> result = initialize(cfg);
         doSolve(cfg, result);
         return result;
     }
 
+    /**
+     * Incrementally re-solves the data-flow problem on given CFG after
+     * some nodes are changed (e.g., their statements are edited), and
+     * updates the given result in place. The CFG must have the same nodes
+     * and edges as the one which the result was computed on, except for
+     * the new nodes, which must be included in the changed nodes.
+     * If edges or nodes are removed, use
+     * {@link #resolve(CFG, DataflowResult, Collection, Collection)}.
+     * <p>
+     * Only the facts which may depend on the changed nodes, i.e., the ones
+     * of the nodes reachable from the changed nodes along the direction of
+     * the analysis, are reset and re-computed, and the facts of all other
+     * nodes are left untouched, without being visited.
+     *
+     * @param cfg          control-flow graph where the analysis is performed on
+     * @param result       result of the analysis on the CFG before the change
+     * @param changedNodes the changed nodes
+     */
+    public void resolve(CFG<Node> cfg, DataflowResult<Node, Fact> result,
+                        Collection<Node> changedNodes) {
+        resolve(cfg, result, changedNodes, List.of());
+    }
+
+    /**
+     * Incrementally re-solves the data-flow problem on given CFG after
+     * some nodes are changed and some edges are removed. The removed
+     * edges include the ones of the removed nodes, and the targets
+     * (sources) of the removed edges in forward (backward) analysis,
+     * which lose the facts flowing along the edges, are re-solved
+     * as the changed nodes. The facts of the removed nodes are left
+     * in the result, and they should not be queried any more.
+     *
+     * @param cfg          control-flow graph where the analysis is performed on
+     * @param result       result of the analysis on the CFG before the change
+     * @param changedNodes the changed nodes
+     * @param removedEdges the edges of the CFG before the change which
+     *                     are not in the given CFG
+     */
+    public void resolve(CFG<Node> cfg, DataflowResult<Node, Fact> result,
+                        Collection<Node> changedNodes,
+                        Collection<? extends Edge<Node>> removedEdges) {
+        Set<Node> seeds = new LinkedHashSet<>();
+        changedNodes.stream()
+                .filter(cfg::hasNode)
+                .forEach(seeds::add);
+        removedEdges.stream()
+                .map(edge -> analysis.isForward() ? edge.getTarget() : edge.getSource())
+                .filter(cfg::hasNode)
+                .forEach(seeds::add);
+        Set<Node> affected = getAffectedNodes(cfg, seeds);
+        if (analysis.isForward()) {
+            for (Node node : affected) {
+                if (cfg.isEntry(node)) {
+                    result.setOutFact(node, analysis.newBoundaryFact(cfg));
+                    result.setInFact(node, analysis.newBoundaryFact(cfg));
+                } else {
+                    result.setOutFact(node, analysis.newInitialFact());
+                    result.setInFact(node, analysis.newInitialFact());
+                }
+            }
+            doResolveForward(cfg, result, affected);
+        } else {
+            for (Node node : affected) {
+                if (cfg.isExit(node)) {
+                    result.setInFact(node, analysis.newBoundaryFact(cfg));
+                    result.setOutFact(node, analysis.newBoundaryFact(cfg));
+                } else {
+                    result.setInFact(node, analysis.newInitialFact());
+                    result.setOutFact(node, analysis.newInitialFact());
+                }
+            }
+            doResolveBackward(cfg, result, affected);
+        }
+    }
+
+    /**
+     * @return the nodes reachable from the changed nodes along the
+     * direction of the analysis (including the changed nodes).
+     * The returned set is closed under successors (predecessors)
+     * in forward (backward) analysis.
+     */
+    private Set<Node> getAffectedNodes(CFG<Node> cfg, Collection<Node> changedNodes) {
+        Set<Node> affected = new LinkedHashSet<>();
+        Deque<Node> stack = new ArrayDeque<>();
+        for (Node node : changedNodes) {
+            if (affected.add(node)) {
+                stack.push(node);
+            }
+        }
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            for (Node next : analysis.isForward() ?
+                    cfg.getSuccsOf(node) : cfg.getPredsOf(node)) {
+                if (affected.add(next)) {
+                    stack.push(next);
+                }
+            }
+        }
+        return affected;
+    }
+
     /**
      * Creates and initializes a new data-flow result for given CFG.
      *
@@ -118,4 +319,54 @@ public abstract class Solver<Node, Fact> {
     protected abstract void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result);
 
     protected abstract void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result);
+
+    /**
+     * Re-solves the facts of given nodes, which have been reset, for
+     * forward analysis. The facts of the other nodes are up-to-date,
+     * and the given nodes are closed under successors.
+     * <p>
+     * By default, the nodes are processed in FIFO order.
+     */
+    protected void doResolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result,
+                                    Set<Node> nodes) {
+        Queue<Node> workList = new SetQueue<>();
+        workList.addAll(nodes);
+        while (!workList.isEmpty()) {
+            Node node = workList.poll();
+            nodeVisits.increment();
+
+            Fact inFact = result.getInFact(node);
+            for (Node pred : cfg.getPredsOf(node)) {
+                analysis.meetInto(result.getOutFact(pred), inFact);
+            }
+            if (analysis.transferNode(node, inFact, result.getOutFact(node))) {
+                workList.addAll(cfg.getSuccsOf(node));
+            }
+        }
+    }
+
+    /**
+     * Re-solves the facts of given nodes, which have been reset, for
+     * backward analysis. The facts of the other nodes are up-to-date,
+     * and the given nodes are closed under predecessors.
+     * <p>
+     * By default, the nodes are processed in FIFO order.
+     */
+    protected void doResolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result,
+                                     Set<Node> nodes) {
+        Queue<Node> workList = new SetQueue<>();
+        workList.addAll(nodes);
+        while (!workList.isEmpty()) {
+            Node node = workList.poll();
+            nodeVisits.increment();
+
+            Fact outFact = result.getOutFact(node);
+            for (Node succ : cfg.getSuccsOf(node)) {
+                analysis.meetInto(result.getInFact(succ), outFact);
+            }
+            if (analysis.transferNode(node, result.getInFact(node), outFact)) {
+                workList.addAll(cfg.getPredsOf(node));
+            }
+        }
+    }
 }
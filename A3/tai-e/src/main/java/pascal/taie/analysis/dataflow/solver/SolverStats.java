@@ -0,0 +1,179 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.dataflow.fact.MapFact;
+import pascal.taie.analysis.dataflow.fact.SetFact;
+import pascal.taie.language.classes.JMethod;
+
+/**
+ * Statistics of solving the data-flow problem of a method, which are
+ * collected only when the instrumentation of the solver is enabled
+ * (by option "stats"), and are available via
+ * {@link pascal.taie.analysis.dataflow.fact.DataflowResult#getStats()}.
+ * <p>
+ * An instance of this class is updated by a single thread, i.e.,
+ * the one solving the method.
+ */
+public class SolverStats {
+
+    /**
+     * Header of the dump file, which lists the columns of {@link #toRow()}.
+     */
+    static final String HEADER = "method\tvisits\tmeets\tchanges" +
+            "\tpeak-worklist\tmax-fact-size\ttotal-fact-size\ttime(us)";
+
+    private final JMethod method;
+
+    private long nodeVisits;
+
+    private long meets;
+
+    private long changes;
+
+    private int peakWorkListSize;
+
+    private int maxFactSize;
+
+    private long totalFactSize;
+
+    private long elapsedNanos;
+
+    public SolverStats(JMethod method) {
+        this.method = method;
+    }
+
+    public JMethod getMethod() {
+        return method;
+    }
+
+    /**
+     * @return the number of nodes visited by the solver.
+     */
+    public long getNodeVisits() {
+        return nodeVisits;
+    }
+
+    /**
+     * @return the number of calls to {@code meetInto}.
+     */
+    public long getMeets() {
+        return meets;
+    }
+
+    /**
+     * @return the number of calls to {@code transferNode} which changed
+     * the out (in) fact in forward (backward) analysis.
+     */
+    public long getChanges() {
+        return changes;
+    }
+
+    /**
+     * @return the maximum length of the work-list during solving, or 0
+     * if the solver does not use a work-list.
+     */
+    public int getPeakWorkListSize() {
+        return peakWorkListSize;
+    }
+
+    /**
+     * @return the size of the largest fact at the fixed point.
+     */
+    public int getMaxFactSize() {
+        return maxFactSize;
+    }
+
+    /**
+     * @return the sum of the sizes of all facts at the fixed point.
+     */
+    public long getTotalFactSize() {
+        return totalFactSize;
+    }
+
+    /**
+     * @return the wall time for solving the method, in nanoseconds.
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public void addNodeVisits(long visits) {
+        nodeVisits += visits;
+    }
+
+    public void addMeet() {
+        ++meets;
+    }
+
+    public void addChange() {
+        ++changes;
+    }
+
+    public void updateWorkListSize(int size) {
+        if (size > peakWorkListSize) {
+            peakWorkListSize = size;
+        }
+    }
+
+    /**
+     * Adds the size of a fact at the fixed point. The size of a fact
+     * is the number of its elements (mappings) if the fact is a
+     * {@link SetFact} ({@link MapFact}), and otherwise 0.
+     */
+    public void addFact(Object fact) {
+        int size = 0;
+        if (fact instanceof SetFact<?> setFact) {
+            size = setFact.size();
+        } else if (fact instanceof MapFact<?, ?> mapFact) {
+            size = mapFact.keySet().size();
+        }
+        maxFactSize = Math.max(maxFactSize, size);
+        totalFactSize += size;
+    }
+
+    public void addElapsedNanos(long nanos) {
+        elapsedNanos += nanos;
+    }
+
+    /**
+     * @return a row of the dump file for this statistics.
+     */
+    String toRow() {
+        return String.join("\t", method.toString(),
+                Long.toString(nodeVisits), Long.toString(meets),
+                Long.toString(changes), Integer.toString(peakWorkListSize),
+                Integer.toString(maxFactSize), Long.toString(totalFactSize),
+                Long.toString(elapsedNanos / 1000));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d visits, %d meets, %d changes, " +
+                        "peak work-list %d, max fact size %d, " +
+                        "total fact size %d, %.3f ms",
+                method, nodeVisits, meets, changes, peakWorkListSize,
+                maxFactSize, totalFactSize, elapsedNanos / 1e6);
+    }
+}
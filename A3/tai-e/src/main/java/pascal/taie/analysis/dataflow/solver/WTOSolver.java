@@ -0,0 +1,263 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Solver which follows the recursive iteration strategy over a weak
+ * topological order (WTO) of the CFG, as proposed by F. Bourdoncle in
+ * "Efficient chaotic iteration strategies with widenings" (FMPA'93).
+ * <p>
+ * A WTO is a hierarchical ordering of the nodes, where each loop forms
+ * a component, which consists of a head node followed by the (nested)
+ * elements of its body. The solver processes the elements in order,
+ * and iterates a component until its head is stable, thus the inner
+ * loops are stabilized before the outer ones. The widening of the
+ * analysis (if needed) is applied at the component heads.
+ */
+class WTOSolver<Node, Fact> extends Solver<Node, Fact> {
+
+    WTOSolver(DataflowAnalysis<Node, Fact> analysis) {
+        super(analysis);
+    }
+
+    @Override
+    protected void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        solve(cfg, result, new WTOBuilder<>(cfg, true).build());
+    }
+
+    @Override
+    protected void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        solve(cfg, result, new WTOBuilder<>(cfg, false).build());
+    }
+
+    private void solve(CFG<Node> cfg, DataflowResult<Node, Fact> result,
+                       List<Element<Node>> elements) {
+        for (Element<Node> element : elements) {
+            if (element.isComponent()) {
+                update(cfg, result, element.node, true);
+                do {
+                    solve(cfg, result, element.body);
+                } while (update(cfg, result, element.node, true));
+            } else {
+                update(cfg, result, element.node, false);
+            }
+        }
+    }
+
+    /**
+     * Meets the facts flowing into given node, and transfers the node.
+     *
+     * @return true if the transfer changed the out (in) fact of the node
+     * in forward (backward) analysis.
+     */
+    private boolean update(CFG<Node> cfg, DataflowResult<Node, Fact> result,
+                           Node node, boolean isHead) {
+        nodeVisits.increment();
+        boolean forward = analysis.isForward();
+        Fact fact = forward ? result.getInFact(node) : result.getOutFact(node);
+        Fact previous = null;
+        if (isHead && analysis.needWidening(node)) {
+            // initial fact is the identity of meet,
+            // thus this copies the current fact
+            previous = analysis.newInitialFact();
+            analysis.meetInto(fact, previous);
+        }
+        if (forward) {
+            for (Node pred : cfg.getPredsOf(node)) {
+                analysis.meetInto(result.getOutFact(pred), fact);
+            }
+        } else {
+            for (Node succ : cfg.getSuccsOf(node)) {
+                analysis.meetInto(result.getInFact(succ), fact);
+            }
+        }
+        if (previous != null) {
+            analysis.widen(node, previous, fact);
+        }
+        return forward ?
+                analysis.transferNode(node, fact, result.getOutFact(node)) :
+                analysis.transferNode(node, result.getInFact(node), fact);
+    }
+
+    /**
+     * Element of a WTO, which is either a single node, or a component
+     * consisting of a head node and the elements of its body.
+     */
+    private static class Element<Node> {
+
+        private final Node node;
+
+        /**
+         * Elements of the body, which is null for a single node.
+         */
+        private final List<Element<Node>> body;
+
+        private Element(Node node, List<Element<Node>> body) {
+            this.node = node;
+            this.body = body;
+        }
+
+        private boolean isComponent() {
+            return body != null;
+        }
+    }
+
+    /**
+     * Builds the WTO of a CFG by hierarchical decomposition into strongly
+     * connected components: the components are ordered topologically, and
+     * each non-trivial component is further decomposed after removing its
+     * head, i.e., the node first reached by the depth-first search.
+     * The components are computed by an iterative version of Tarjan's
+     * algorithm, so only the nesting of loops consumes the call stack.
+     * For backward analysis, the WTO is built on the reverse CFG.
+     */
+    private static class WTOBuilder<Node> {
+
+        private final CFG<Node> cfg;
+
+        private final boolean forward;
+
+        private WTOBuilder(CFG<Node> cfg, boolean forward) {
+            this.cfg = cfg;
+            this.forward = forward;
+        }
+
+        private List<Element<Node>> build() {
+            Node root = forward ? cfg.getEntry() : cfg.getExit();
+            List<Node> nodes = new ArrayList<>(cfg.getNumberOfNodes());
+            nodes.add(root);
+            for (Node node : cfg) {
+                if (node != root) {
+                    nodes.add(node);
+                }
+            }
+            return decompose(nodes);
+        }
+
+        private Collection<Node> nextOf(Node node) {
+            return forward ? cfg.getSuccsOf(node) : cfg.getPredsOf(node);
+        }
+
+        /**
+         * Decomposes the subgraph induced by given nodes into WTO elements.
+         * The nodes are also the roots of the depth-first search, in order.
+         */
+        private List<Element<Node>> decompose(List<Node> nodes) {
+            Set<Node> scope = Sets.newSet(nodes.size());
+            scope.addAll(nodes);
+            Map<Node, Integer> indexes = Maps.newMap(nodes.size());
+            Map<Node, Integer> lowLinks = Maps.newMap(nodes.size());
+            Deque<Node> sccStack = new ArrayDeque<>();
+            Set<Node> onStack = Sets.newSet(nodes.size());
+            List<List<Node>> sccs = new ArrayList<>();
+            Deque<Node> nodeStack = new ArrayDeque<>();
+            Deque<Iterator<Node>> nextStack = new ArrayDeque<>();
+            for (Node root : nodes) {
+                if (indexes.containsKey(root)) {
+                    continue;
+                }
+                push(root, indexes, lowLinks, sccStack, onStack, nodeStack, nextStack);
+                while (!nodeStack.isEmpty()) {
+                    Node node = nodeStack.peek();
+                    Iterator<Node> nexts = nextStack.peek();
+                    if (nexts.hasNext()) {
+                        Node next = nexts.next();
+                        if (!scope.contains(next)) {
+                            continue;
+                        }
+                        if (!indexes.containsKey(next)) {
+                            push(next, indexes, lowLinks, sccStack, onStack, nodeStack, nextStack);
+                        } else if (onStack.contains(next)) {
+                            lowLinks.put(node, Math.min(lowLinks.get(node), indexes.get(next)));
+                        }
+                    } else {
+                        nodeStack.pop();
+                        nextStack.pop();
+                        int lowLink = lowLinks.get(node);
+                        if (!nodeStack.isEmpty()) {
+                            Node parent = nodeStack.peek();
+                            lowLinks.put(parent, Math.min(lowLinks.get(parent), lowLink));
+                        }
+                        if (lowLink == indexes.get(node)) {
+                            List<Node> scc = new ArrayList<>();
+                            Node member;
+                            do {
+                                member = sccStack.pop();
+                                onStack.remove(member);
+                                scc.add(member);
+                            } while (member != node);
+                            sccs.add(scc);
+                        }
+                    }
+                }
+            }
+            // Tarjan's algorithm finds the components in reverse topological order
+            Collections.reverse(sccs);
+            List<Element<Node>> elements = new ArrayList<>(sccs.size());
+            for (List<Node> scc : sccs) {
+                // the last popped node is the root of the component
+                Node head = scc.get(scc.size() - 1);
+                if (scc.size() == 1 && !nextOf(head).contains(head)) {
+                    elements.add(new Element<>(head, null));
+                } else {
+                    // decompose the body in the order of discovery,
+                    // which starts from the successors of the head
+                    List<Node> body = new ArrayList<>(scc.subList(0, scc.size() - 1));
+                    body.sort((n1, n2) -> Integer.compare(indexes.get(n1), indexes.get(n2)));
+                    elements.add(new Element<>(head, decompose(body)));
+                }
+            }
+            return elements;
+        }
+
+        private void push(Node node, Map<Node, Integer> indexes,
+                          Map<Node, Integer> lowLinks, Deque<Node> sccStack,
+                          Set<Node> onStack, Deque<Node> nodeStack,
+                          Deque<Iterator<Node>> nextStack) {
+            int index = indexes.size();
+            indexes.put(node, index);
+            lowLinks.put(node, index);
+            sccStack.push(node);
+            onStack.add(node);
+            nodeStack.push(node);
+            nextStack.push(nextOf(node).iterator());
+        }
+    }
+}
@@ -43,7 +43,11 @@ class WorkListSolver<Node, Fact> extends Solver<Node, Fact> {
         }
 
         while (!list.isEmpty()) {
+            if (stats != null) {
+                stats.updateWorkListSize(list.size());
+            }
             Node node = list.pollFirst();
+            nodeVisits.increment();
 
             Fact node_in_fact = result.getInFact(node);
             for (Node pred : cfg.getPredsOf(node)) {
@@ -75,7 +79,11 @@ class WorkListSolver<Node, Fact> extends Solver<Node, Fact> {
         }
 
         while (!list.isEmpty()) {
+            if (stats != null) {
+                stats.updateWorkListSize(list.size());
+            }
             Node node = list.pollFirst();
+            nodeVisits.increment();
 
             Fact node_out_fact = result.getOutFact(node);
             for (Node succ : cfg.getSuccsOf(node)) {
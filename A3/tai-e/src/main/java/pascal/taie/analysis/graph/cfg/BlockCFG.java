@@ -0,0 +1,145 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.graph.cfg;
+
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.util.collection.Maps;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Control-flow graph whose nodes are basic blocks, built on top of
+ * a statement-level CFG (typically the one given by {@link CFGBuilder}).
+ * <p>
+ * The entry and exit nodes of the underlying CFG are kept in singleton
+ * blocks, which are the entry and exit of this CFG respectively.
+ * The edges between blocks keep the kinds of the corresponding edges
+ * that leave the last statements of the blocks.
+ */
+public class BlockCFG extends AbstractCFG<BasicBlock> {
+
+    /**
+     * Key of the block CFG of an IR, see {@link #of(CFG)}.
+     */
+    public static final String ID = "block-cfg";
+
+    private final CFG<Stmt> stmtCFG;
+
+    private final Map<Stmt, BasicBlock> blocks;
+
+    private BlockCFG(CFG<Stmt> stmtCFG) {
+        super(stmtCFG.getIR());
+        this.stmtCFG = stmtCFG;
+        this.blocks = Maps.newMap(stmtCFG.getNumberOfNodes());
+        build();
+    }
+
+    /**
+     * @return the block CFG of given statement-level CFG. The block CFG
+     * is built once per IR, and stored in the IR for later retrieval.
+     */
+    public static BlockCFG of(CFG<Stmt> stmtCFG) {
+        return stmtCFG.getIR().getResult(ID, () -> new BlockCFG(stmtCFG));
+    }
+
+    /**
+     * @return the statement-level CFG this block CFG is built from.
+     */
+    public CFG<Stmt> getStmtCFG() {
+        return stmtCFG;
+    }
+
+    /**
+     * @return the block which contains given statement, or null if
+     * the statement is not in the underlying CFG.
+     */
+    public BasicBlock getBlockOf(Stmt stmt) {
+        return blocks.get(stmt);
+    }
+
+    private void build() {
+        // nodes of StmtCFG are ordered by their indexes,
+        // which makes the numbering of blocks deterministic
+        for (Stmt stmt : stmtCFG) {
+            if (isLeader(stmt)) {
+                addBlock(stmt);
+            }
+        }
+        // statements which are not reachable from any leader,
+        // i.e., those on an isolated cycle of straight-line code
+        for (Stmt stmt : stmtCFG) {
+            if (!blocks.containsKey(stmt)) {
+                addBlock(stmt);
+            }
+        }
+        setEntry(blocks.get(stmtCFG.getEntry()));
+        setExit(blocks.get(stmtCFG.getExit()));
+        for (BasicBlock block : getNodes()) {
+            for (Edge<Stmt> edge : stmtCFG.getOutEdgesOf(block.getLast())) {
+                addEdge(new Edge<>(edge.getKind(),
+                        block, blocks.get(edge.getTarget())));
+            }
+        }
+    }
+
+    /**
+     * @return true if given statement starts a new block, i.e., it is
+     * the entry or exit node, or it is not the unique successor of its
+     * unique predecessor.
+     */
+    private boolean isLeader(Stmt stmt) {
+        if (stmtCFG.isEntry(stmt) || stmtCFG.isExit(stmt)
+                || stmtCFG.getInDegreeOf(stmt) != 1) {
+            return true;
+        }
+        Stmt pred = stmtCFG.getPredsOf(stmt).iterator().next();
+        return stmtCFG.isEntry(pred) || stmtCFG.getOutDegreeOf(pred) != 1;
+    }
+
+    /**
+     * Adds the block starting at given leader, which extends along the
+     * unique successors until reaching another leader.
+     */
+    private void addBlock(Stmt leader) {
+        List<Stmt> stmts = new ArrayList<>();
+        Stmt stmt = leader;
+        while (true) {
+            stmts.add(stmt);
+            if (stmtCFG.isExit(stmt) || stmtCFG.isEntry(stmt)
+                    || stmtCFG.getOutDegreeOf(stmt) != 1) {
+                break;
+            }
+            Stmt succ = stmtCFG.getSuccsOf(stmt).iterator().next();
+            if (succ == leader || isLeader(succ)) {
+                break;
+            }
+            stmt = succ;
+        }
+        BasicBlock block = new BasicBlock(nodes.size(), stmts);
+        stmts.forEach(s -> blocks.put(s, block));
+        addNode(block);
+    }
+}
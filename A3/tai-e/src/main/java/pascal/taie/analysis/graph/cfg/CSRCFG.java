@@ -0,0 +1,83 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.graph.cfg;
+
+import pascal.taie.ir.IR;
+import pascal.taie.util.graph.CSRGraph;
+
+/**
+ * Provides the {@link CSRGraph} snapshots of CFGs, whose edges are
+ * labeled by the ordinals of their {@link Edge.Kind}s.
+ * <p>
+ * The snapshots of the statement-level CFG and the {@link BlockCFG}
+ * of an IR are built once, and stored in the IR for later retrieval.
+ * The reversed snapshots, e.g., for backward analyses, are obtained
+ * by {@link CSRGraph#reverse()}, which is also built only once.
+ */
+public final class CSRCFG {
+
+    /**
+     * Key of the snapshot of the statement-level CFG of an IR.
+     */
+    public static final String ID = "csr-cfg";
+
+    /**
+     * Key of the snapshot of the block CFG of an IR.
+     */
+    public static final String BLOCK_ID = "csr-block-cfg";
+
+    private static final Edge.Kind[] KINDS = Edge.Kind.values();
+
+    private CSRCFG() {
+    }
+
+    /**
+     * @return the CSR snapshot of given CFG.
+     */
+    public static <N> CSRGraph<N> of(CFG<N> cfg) {
+        IR ir = cfg.getIR();
+        String key = cfg instanceof BlockCFG ? BLOCK_ID : ID;
+        CSRGraph<N> csr = ir.getResult(key);
+        // the stored snapshot is stale if the CFG of the IR has been rebuilt
+        if (csr == null || !csr.isSnapshotOf(cfg)) {
+            csr = CSRGraph.of(cfg, edge -> ((Edge<N>) edge).getKind().ordinal());
+            ir.storeResult(key, csr);
+        }
+        return csr;
+    }
+
+    /**
+     * @return the reversed CSR snapshot of given CFG.
+     */
+    public static <N> CSRGraph<N> reversedOf(CFG<N> cfg) {
+        return of(cfg).reverse();
+    }
+
+    /**
+     * @return the kind of the edge of given label.
+     */
+    public static Edge.Kind getKind(int label) {
+        return KINDS[label];
+    }
+}
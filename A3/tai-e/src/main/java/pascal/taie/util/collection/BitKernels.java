@@ -0,0 +1,157 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.util.collection;
+
+/**
+ * Kernels of the word-wise operations on bit vectors, i.e., {@code long[]}
+ * in which bit {@code i} is bit {@code i % 64} of word {@code i / 64}.
+ * These operations are the inner loops of the bit-vector based sets,
+ * e.g., the meets of set facts in data-flow analyses.
+ * <p>
+ * {@link #get()} returns the kernels based on the Vector API
+ * ({@code jdk.incubator.vector}) if they are built (by Gradle property
+ * {@code vector}, i.e., {@code gradlew -Pvector ...}) and the module is
+ * available at runtime (via {@code --add-modules jdk.incubator.vector}),
+ * and the scalar ones otherwise, which are the default. Each binary operation is performed on the first {@code n}
+ * words of its operands, and the callers handle the words beyond
+ * the shorter operand.
+ */
+public abstract class BitKernels {
+
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+    private static final String VECTOR_KERNELS =
+            "pascal.taie.util.collection.VectorBitKernels";
+
+    /**
+     * @return the fastest kernels available in the current JVM.
+     */
+    public static BitKernels get() {
+        return Holder.BEST;
+    }
+
+    /**
+     * @return the scalar kernels, which are always available.
+     */
+    public static BitKernels scalar() {
+        return Scalar.INSTANCE;
+    }
+
+    /**
+     * Sets {@code target[i] |= source[i]} for {@code i < n}.
+     *
+     * @return true if target changed as a result of the call.
+     */
+    public abstract boolean or(long[] target, long[] source, int n);
+
+    /**
+     * Sets {@code target[i] &= source[i]} for {@code i < n}.
+     *
+     * @return true if target changed as a result of the call.
+     */
+    public abstract boolean and(long[] target, long[] source, int n);
+
+    /**
+     * Sets {@code target[i] &= ~source[i]} for {@code i < n}.
+     *
+     * @return true if target changed as a result of the call.
+     */
+    public abstract boolean andNot(long[] target, long[] source, int n);
+
+    /**
+     * @return the number of set bits in the first {@code n} words.
+     */
+    public abstract int popCount(long[] words, int n);
+
+    /**
+     * Selects the kernels lazily, so that the Vector API is
+     * never touched when it is unavailable.
+     */
+    private static class Holder {
+
+        private static final BitKernels BEST = select();
+
+        private static BitKernels select() {
+            if (ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+                return Scalar.INSTANCE;
+            }
+            try {
+                Class<?> c = Class.forName(VECTOR_KERNELS);
+                if ((boolean) c.getDeclaredMethod("isProfitable").invoke(null)) {
+                    return (BitKernels) c.getDeclaredConstructor().newInstance();
+                }
+            } catch (ReflectiveOperationException e) {
+                // the vector kernels are not built
+            }
+            return Scalar.INSTANCE;
+        }
+    }
+
+    private static final class Scalar extends BitKernels {
+
+        private static final Scalar INSTANCE = new Scalar();
+
+        @Override
+        public boolean or(long[] target, long[] source, int n) {
+            long changed = 0;
+            for (int i = 0; i < n; ++i) {
+                long old = target[i];
+                target[i] |= source[i];
+                changed |= target[i] ^ old;
+            }
+            return changed != 0;
+        }
+
+        @Override
+        public boolean and(long[] target, long[] source, int n) {
+            long changed = 0;
+            for (int i = 0; i < n; ++i) {
+                long old = target[i];
+                target[i] &= source[i];
+                changed |= target[i] ^ old;
+            }
+            return changed != 0;
+        }
+
+        @Override
+        public boolean andNot(long[] target, long[] source, int n) {
+            long changed = 0;
+            for (int i = 0; i < n; ++i) {
+                long old = target[i];
+                target[i] &= ~source[i];
+                changed |= target[i] ^ old;
+            }
+            return changed != 0;
+        }
+
+        @Override
+        public int popCount(long[] words, int n) {
+            int count = 0;
+            for (int i = 0; i < n; ++i) {
+                count += Long.bitCount(words[i]);
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,271 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.util.graph;
+
+import pascal.taie.util.collection.Maps;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * Immutable compressed sparse row (CSR) snapshot of a {@link Graph}.
+ * <p>
+ * The nodes are numbered from 0 to the number of nodes - 1 (in the
+ * iteration order of the graph), and the edges are stored in flat
+ * int arrays: the successors of node {@code v} are
+ * {@code getSucc(k)} for {@code k} in
+ * [{@code getSuccStart(v)}, {@code getSuccEnd(v)}), and similarly for
+ * the predecessors. Each edge of the graph occupies one entry, thus a
+ * node is repeated if there are multiple edges between two nodes.
+ * Each edge carries an int label, e.g., the kind of a CFG edge, which
+ * is stored once for the edge: the edges are identified by their
+ * positions among the out edges, and each in edge refers to the
+ * position of the same edge among the out edges.
+ * This allows the clients, e.g., the data-flow solvers, to iterate
+ * over the adjacent nodes without allocating iterators or hashing.
+ *
+ * @param <N> type of nodes
+ */
+public class CSRGraph<N> {
+
+    private final Graph<N> graph;
+
+    private final List<N> nodes;
+
+    private final Map<N, Integer> ids;
+
+    private final int[] succOffsets;
+
+    private final int[] succs;
+
+    /**
+     * Ids of the out edges, i.e., indexes in {@link #labels},
+     * or null if the id of the k-th out edge is k.
+     */
+    @Nullable
+    private final int[] succEdges;
+
+    private final int[] predOffsets;
+
+    private final int[] preds;
+
+    /**
+     * Ids of the in edges, or null if the id of the k-th in edge is k.
+     */
+    @Nullable
+    private final int[] predEdges;
+
+    /**
+     * Labels of the edges, indexed by the ids of the edges.
+     */
+    private final int[] labels;
+
+    /**
+     * The reversed graph, which is created on demand.
+     */
+    @Nullable
+    private CSRGraph<N> reversed;
+
+    private CSRGraph(Graph<N> graph, List<N> nodes, Map<N, Integer> ids,
+                     int[] succOffsets, int[] succs, @Nullable int[] succEdges,
+                     int[] predOffsets, int[] preds, @Nullable int[] predEdges,
+                     int[] labels) {
+        this.graph = graph;
+        this.nodes = nodes;
+        this.ids = ids;
+        this.succOffsets = succOffsets;
+        this.succs = succs;
+        this.succEdges = succEdges;
+        this.predOffsets = predOffsets;
+        this.preds = preds;
+        this.predEdges = predEdges;
+        this.labels = labels;
+    }
+
+    /**
+     * @param labeler computes the label of each edge.
+     * @return the CSR snapshot of given graph.
+     */
+    public static <N> CSRGraph<N> of(
+            Graph<N> graph, ToIntFunction<Edge<N>> labeler) {
+        int n = graph.getNumberOfNodes();
+        List<N> nodes = new ArrayList<>(n);
+        Map<N, Integer> ids = Maps.newMap(n);
+        for (N node : graph) {
+            ids.put(node, nodes.size());
+            nodes.add(node);
+        }
+        int[] succOffsets = new int[n + 1];
+        int[] predOffsets = new int[n + 1];
+        for (int v = 0; v < n; ++v) {
+            succOffsets[v + 1] = succOffsets[v] + graph.getOutDegreeOf(nodes.get(v));
+            predOffsets[v + 1] = predOffsets[v] + graph.getInDegreeOf(nodes.get(v));
+        }
+        int[] succs = new int[succOffsets[n]];
+        int[] labels = new int[succs.length];
+        // out edges -> their ids, for matching the in edges
+        Map<Edge<N>, Integer> edgeIds = Maps.newMap(succs.length);
+        for (int v = 0; v < n; ++v) {
+            int k = succOffsets[v];
+            for (Edge<N> edge : graph.getOutEdgesOf(nodes.get(v))) {
+                succs[k] = ids.get(edge.getTarget());
+                labels[k] = labeler.applyAsInt(edge);
+                edgeIds.put(edge, k);
+                ++k;
+            }
+        }
+        int[] preds = new int[predOffsets[n]];
+        int[] predEdges = new int[preds.length];
+        for (int v = 0; v < n; ++v) {
+            int k = predOffsets[v];
+            for (Edge<N> edge : graph.getInEdgesOf(nodes.get(v))) {
+                int u = ids.get(edge.getSource());
+                preds[k] = u;
+                Integer id = edgeIds.get(edge);
+                predEdges[k] = id != null ? id : findSucc(succOffsets, succs, u, v);
+                ++k;
+            }
+        }
+        return new CSRGraph<>(graph, Collections.unmodifiableList(nodes), ids,
+                succOffsets, succs, null, predOffsets, preds, predEdges, labels);
+    }
+
+    /**
+     * @return the id of the first out edge from u to v. This matches the
+     * in edges which are not equal to any out edges, e.g., the ones
+     * created on demand by {@link Graph#getInEdgesOf(Object)}.
+     */
+    private static int findSucc(int[] succOffsets, int[] succs, int u, int v) {
+        for (int k = succOffsets[u]; k < succOffsets[u + 1]; ++k) {
+            if (succs[k] == v) {
+                return k;
+            }
+        }
+        throw new IllegalArgumentException("In edge " + u + " -> " + v +
+                " is not an out edge of the graph");
+    }
+
+    /**
+     * @return the reversed graph of this graph, which shares the node ids,
+     * the arrays and the edge labels with this graph, i.e., the successors
+     * of a node in the reversed graph are its predecessors in this graph,
+     * and vice versa. The reversed graph is created once, and the reverse
+     * of it is this graph.
+     */
+    public CSRGraph<N> reverse() {
+        if (reversed == null) {
+            CSRGraph<N> reverse = new CSRGraph<>(graph, nodes, ids,
+                    predOffsets, preds, predEdges,
+                    succOffsets, succs, succEdges, labels);
+            reverse.reversed = this;
+            reversed = reverse;
+        }
+        return reversed;
+    }
+    /**
+     * @return true if this is the snapshot of given graph (or its reverse).
+     */
+    public boolean isSnapshotOf(Graph<?> graph) {
+        return this.graph == graph;
+    }
+
+    public int getNumberOfNodes() {
+        return nodes.size();
+    }
+
+    /**
+     * @return the node of given id.
+     */
+    public N getNode(int id) {
+        return nodes.get(id);
+    }
+
+    /**
+     * @return the id of given node, or -1 if this graph does not have the node.
+     */
+    public int getId(N node) {
+        Integer id = ids.get(node);
+        return id != null ? id : -1;
+    }
+
+    /**
+     * @return the start (inclusive) of the out edges of given node.
+     */
+    public int getSuccStart(int id) {
+        return succOffsets[id];
+    }
+
+    /**
+     * @return the end (exclusive) of the out edges of given node.
+     */
+    public int getSuccEnd(int id) {
+        return succOffsets[id + 1];
+    }
+
+    /**
+     * @return the target node of the k-th out edge.
+     */
+    public int getSucc(int k) {
+        return succs[k];
+    }
+
+    /**
+     * @return the label of the k-th out edge.
+     */
+    public int getSuccLabel(int k) {
+        return labels[succEdges != null ? succEdges[k] : k];
+    }
+
+    /**
+     * @return the start (inclusive) of the in edges of given node.
+     */
+    public int getPredStart(int id) {
+        return predOffsets[id];
+    }
+
+    /**
+     * @return the end (exclusive) of the in edges of given node.
+     */
+    public int getPredEnd(int id) {
+        return predOffsets[id + 1];
+    }
+
+    /**
+     * @return the source node of the k-th in edge.
+     */
+    public int getPred(int k) {
+        return preds[k];
+    }
+
+    /**
+     * @return the label of the k-th in edge.
+     */
+    public int getPredLabel(int k) {
+        return labels[predEdges != null ? predEdges[k] : k];
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.World;
+import pascal.taie.analysis.dataflow.DataflowTests;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.config.ConfigException;
+import pascal.taie.config.Options;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class AnalysisSchedulerTest {
+
+    private static final String DEADCODE = "deadcode";
+
+    private static String[] getArgs(String main, String processOptions) {
+        return new String[]{
+                "-pp", "-cp", DataflowTests.DIR, "-m", main,
+                "-a", DEADCODE,
+                "-a", ResultProcessor.ID + "=analyses:[" + DEADCODE + "];" + processOptions
+        };
+    }
+
+    @Test
+    public void testDependencies() {
+        AnalysisScheduler scheduler = new AnalysisScheduler(Options.parse(
+                getArgs("Loops", "action:dump")), 2);
+        List<AnalysisConfig> plan = scheduler.makePlan();
+        Map<String, List<String>> dependencies = scheduler.getDependencies(plan);
+        // dead code detection depends on the analyses it requires
+        Assert.assertTrue(dependencies.get(DEADCODE).containsAll(
+                List.of("cfg", "constprop", "livevar")));
+        Assert.assertTrue(dependencies.get("constprop").contains("cfg"));
+        Assert.assertFalse(dependencies.get("constprop").contains("livevar"));
+        // process-result depends on all the other analyses, including
+        // the ones whose results it does not process
+        Assert.assertEquals(Set.copyOf(plan.stream()
+                        .map(AnalysisConfig::getId)
+                        .filter(id -> !id.equals(ResultProcessor.ID))
+                        .toList()),
+                Set.copyOf(dependencies.get(ResultProcessor.ID)));
+    }
+
+    /**
+     * Schedules dead code detection with given number of threads,
+     * and compares its results with the expected ones. The processed
+     * results are released, which must not affect the other analyses.
+     */
+    private static void testSchedule(String main, int threads) {
+        String file = DataflowTests.DIR + main + "-" + DEADCODE + "-expected.txt";
+        List<String> args = new ArrayList<>(List.of(
+                AnalysisScheduler.THREADS_OPTION, String.valueOf(threads)));
+        Collections.addAll(args, getArgs(main,
+                "action:compare;file:" + file + ";release:true"));
+        AnalysisScheduler.main(args.toArray(new String[0]));
+        Set<String> mismatches = World.get().getResult(ResultProcessor.ID);
+        Assert.assertTrue("Mismatches of " + main + ":\n" +
+                String.join("\n", mismatches), mismatches.isEmpty());
+    }
+
+    @Test
+    public void testSchedule() {
+        DataflowTests.INPUTS.forEach(main -> testSchedule(main, 2));
+    }
+
+    @Test
+    public void testSequentialSchedule() {
+        DataflowTests.INPUTS.forEach(main -> testSchedule(main, 1));
+    }
+
+    @Test
+    public void testInvalidThreads() {
+        Assert.assertThrows(ConfigException.class,
+                () -> testSchedule("Loops", 0));
+    }
+
+    @Test
+    public void testReachableScope() {
+        // the call graph is unavailable, thus reachable scope is rejected
+        List<String> args = new ArrayList<>(List.of("-scope", "reachable"));
+        Collections.addAll(args, getArgs("Loops", "action:dump"));
+        Assert.assertThrows(ConfigException.class, () -> new AnalysisScheduler(
+                Options.parse(args.toArray(new String[0])), 2));
+    }
+}
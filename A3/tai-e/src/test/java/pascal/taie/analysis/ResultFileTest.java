@@ -0,0 +1,87 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+public class ResultFileTest {
+
+    private static final Map<String, List<String>> RECORDS = Map.of(
+            "<Loops: void deadLoop()> deadcode",
+            List.of("[5@L10] invokevirtual %this.<Loops: void dead()>();"),
+            "<Loops: void dead()> deadcode", List.of(),
+            "<Loops: void use(int)> livevar",
+            List.of("[0@L16] return; []", "[1@L16] return; []"),
+            "<Unicode: void 中文()> constprop", List.of("éè = 1"));
+
+    private static Path write(List<String> keys) throws IOException {
+        Path path = Files.createTempFile("result", ".bin");
+        path.toFile().deleteOnExit();
+        try (ResultFile.Writer writer = new ResultFile.Writer(path)) {
+            keys.forEach(key -> writer.put(key, RECORDS.get(key)));
+        }
+        return path;
+    }
+
+    @Test
+    public void testReadWrite() throws IOException {
+        Path path = write(List.copyOf(RECORDS.keySet()));
+        Assert.assertTrue(ResultFile.isBinary(path));
+        ResultFile.Reader reader = new ResultFile.Reader(path);
+        RECORDS.forEach((key, lines) ->
+                Assert.assertEquals(key, lines, reader.get(key)));
+        Assert.assertNull(reader.get("<Loops: void absent()> deadcode"));
+    }
+
+    /**
+     * The file should not depend on the order in which the records are put,
+     * e.g., by the analyses running in parallel.
+     */
+    @Test
+    public void testDeterministic() throws IOException {
+        List<String> keys = List.copyOf(RECORDS.keySet());
+        List<String> reversed = new ArrayList<>(keys);
+        Collections.reverse(reversed);
+        Assert.assertArrayEquals(Files.readAllBytes(write(keys)),
+                Files.readAllBytes(write(reversed)));
+    }
+
+    @Test
+    public void testTextFile() throws IOException {
+        Path path = Files.createTempFile("result", ".txt");
+        path.toFile().deleteOnExit();
+        Files.writeString(path, "---------- <Loops: void dead()> (deadcode) ----------\n");
+        Assert.assertFalse(ResultFile.isBinary(path));
+        Assert.assertThrows(IOException.class, () -> new ResultFile.Reader(path));
+    }
+}
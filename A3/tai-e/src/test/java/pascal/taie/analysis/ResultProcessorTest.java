@@ -0,0 +1,120 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.Main;
+import pascal.taie.World;
+import pascal.taie.analysis.dataflow.DataflowTests;
+import pascal.taie.analysis.dataflow.analysis.DeadCodeDetection;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class ResultProcessorTest {
+
+    private static final String HEADER = "--------------------";
+
+    private static void process(String main, String options) {
+        Main.main(new String[]{
+                "-pp", "-cp", DataflowTests.DIR, "-m", main,
+                "-a", DeadCodeDetection.ID,
+                "-a", ResultProcessor.ID + "=analyses:[" +
+                DeadCodeDetection.ID + "];" + options
+        });
+    }
+
+    /**
+     * @return the results in given text file, which map the key of
+     * each method and analysis to the lines of its result.
+     */
+    private static Map<String, List<String>> readText(Path path) throws IOException {
+        Map<String, List<String>> results = new LinkedHashMap<>();
+        List<String> lines = null;
+        for (String line : Files.readAllLines(path)) {
+            if (line.startsWith(HEADER) && line.endsWith(HEADER)) {
+                String key = line.substring(HEADER.length() + 1,
+                        line.length() - HEADER.length() - 1);
+                lines = new ArrayList<>();
+                results.put(key, lines);
+            } else if (!line.isBlank()) {
+                lines.add(line);
+            }
+        }
+        return results;
+    }
+
+    private static Path getExpectedFile(String main) {
+        return Path.of(DataflowTests.DIR,
+                main + "-" + DeadCodeDetection.ID + "-expected.txt");
+    }
+
+    /**
+     * Dumps the results in binary format, and reads them back.
+     */
+    private static void testBinaryDump(String main) throws IOException {
+        Path path = Files.createTempFile(main, ".bin");
+        path.toFile().deleteOnExit();
+        process(main, "action:dump;format:binary;file:" + path);
+        Assert.assertTrue(ResultFile.isBinary(path));
+        ResultFile.Reader reader = new ResultFile.Reader(path);
+        Map<String, List<String>> expected = readText(getExpectedFile(main));
+        Assert.assertEquals(expected.keySet(), Set.copyOf(reader.getKeys()));
+        expected.forEach((key, lines) ->
+                Assert.assertEquals(key, lines, reader.get(key)));
+        // the dumped file is also accepted as the input of comparison
+        process(main, "action:compare;file:" + path);
+        Set<String> mismatches = World.get().getResult(ResultProcessor.ID);
+        Assert.assertTrue(String.join("\n", mismatches), mismatches.isEmpty());
+    }
+
+    @Test
+    public void testBinaryDump() throws IOException {
+        for (String main : DataflowTests.INPUTS) {
+            testBinaryDump(main);
+        }
+    }
+
+    /**
+     * The text dump should be the same as the expected results, which are
+     * dumped in the order of the line numbers of the methods.
+     */
+    @Test
+    public void testTextDump() throws IOException {
+        for (String main : DataflowTests.INPUTS) {
+            Path path = Files.createTempFile(main, ".txt");
+            path.toFile().deleteOnExit();
+            process(main, "action:dump;file:" + path + ";release:true");
+            Assert.assertEquals(main, Files.readAllLines(getExpectedFile(main)),
+                    Files.readAllLines(path));
+        }
+    }
+}
@@ -26,6 +26,8 @@ import org.junit.Assert;
 import pascal.taie.Main;
 import pascal.taie.World;
 import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.ir.IR;
+import pascal.taie.language.classes.JMethod;
 
 import java.nio.file.Paths;
 import java.util.ArrayList;
@@ -95,6 +97,33 @@ public final class Tests {
         }
     }
 
+    /**
+     * Builds the world for a specific test case, and runs given analyses
+     * (together with the analyses they require) on it.
+     *
+     * @param main      the main class to be analyzed
+     * @param classPath where the main class is located
+     * @param ids       IDs of the analyses to be executed
+     * @return the IRs of the concrete methods of the application classes.
+     */
+    public static List<IR> buildIRs(String main, String classPath, String... ids) {
+        List<String> args = new ArrayList<>();
+        args.add("-pp");
+        Collections.addAll(args, "-cp", classPath);
+        Collections.addAll(args, "-m", main);
+        for (String id : ids) {
+            Collections.addAll(args, "-a", id);
+        }
+        Main.main(args.toArray(new String[0]));
+        return World.get()
+                .getClassHierarchy()
+                .applicationClasses()
+                .flatMap(c -> c.getDeclaredMethods().stream())
+                .filter(m -> !m.isAbstract() && !m.isNative())
+                .map(JMethod::getIR)
+                .toList();
+    }
+
     public static void testPTA(String dir, String main, String... opts) {
         doTestPTA("pta", dir, main, opts);
     }
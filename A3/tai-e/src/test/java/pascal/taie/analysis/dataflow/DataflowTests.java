@@ -0,0 +1,143 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow;
+
+import org.junit.Assert;
+import pascal.taie.analysis.Tests;
+import pascal.taie.analysis.dataflow.analysis.LiveVariableAnalysis;
+import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
+import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.analysis.dataflow.fact.NodeResult;
+import pascal.taie.analysis.dataflow.fact.SetFact;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Static utility methods for testing the data-flow engines, which compare
+ * the results of the engines with the ones of the baseline engines, i.e.,
+ * {@code WorkListSolver} with hash-based facts, on the test inputs of
+ * dead code detection.
+ */
+public final class DataflowTests {
+
+    private DataflowTests() {
+    }
+
+    public static final String DIR = "src/test/resources/dataflow/deadcode/";
+
+    public static final List<String> INPUTS = List.of(
+            "ControlFlowUnreachable",
+            "UnreachableIfBranch",
+            "UnreachableSwitchBranch",
+            "DeadAssignment",
+            "Loops");
+
+    /**
+     * @return the IRs (with CFGs) of the methods of given test input.
+     */
+    public static List<IR> buildIRs(String main) {
+        return Tests.buildIRs(main, DIR, CFGBuilder.ID);
+    }
+
+    /**
+     * @param options the options in key-value pairs
+     */
+    public static ConstantPropagation newConstantPropagation(Object... options) {
+        return new ConstantPropagation(
+                new AnalysisConfig(ConstantPropagation.ID, options));
+    }
+
+    /**
+     * @return baseline constant propagation.
+     */
+    public static ConstantPropagation newBaselineConstantPropagation() {
+        return newConstantPropagation("solver", "worklist", "fact", "hybrid");
+    }
+
+    /**
+     * @param options the options in key-value pairs
+     */
+    public static LiveVariableAnalysis newLiveVariableAnalysis(Object... options) {
+        return new LiveVariableAnalysis(
+                new AnalysisConfig(LiveVariableAnalysis.ID, options));
+    }
+
+    /**
+     * @return baseline live variable analysis.
+     */
+    public static LiveVariableAnalysis newBaselineLiveVariableAnalysis() {
+        return newLiveVariableAnalysis("solver", "worklist", "fact", "hybrid");
+    }
+
+    /**
+     * Asserts that the two results of constant propagation on given IR
+     * have the same values for all variables, regardless of the
+     * representations of their facts.
+     */
+    public static void assertSameConstants(
+            IR ir, NodeResult<Stmt, CPFact> expected, NodeResult<Stmt, CPFact> actual) {
+        for (Stmt stmt : ir) {
+            for (Var var : ir.getVars()) {
+                Assert.assertEquals(message(ir, stmt, var, "in"),
+                        expected.getInFact(stmt).get(var),
+                        actual.getInFact(stmt).get(var));
+                Assert.assertEquals(message(ir, stmt, var, "out"),
+                        expected.getOutFact(stmt).get(var),
+                        actual.getOutFact(stmt).get(var));
+            }
+        }
+    }
+
+    /**
+     * Asserts that the two results of live variable analysis on given IR
+     * have the same live variables, regardless of the representations
+     * of their facts.
+     */
+    public static void assertSameLiveVars(
+            IR ir, NodeResult<Stmt, SetFact<Var>> expected,
+            NodeResult<Stmt, SetFact<Var>> actual) {
+        for (Stmt stmt : ir) {
+            Assert.assertEquals(message(ir, stmt, null, "in"),
+                    toSet(expected.getInFact(stmt)), toSet(actual.getInFact(stmt)));
+            Assert.assertEquals(message(ir, stmt, null, "out"),
+                    toSet(expected.getOutFact(stmt)), toSet(actual.getOutFact(stmt)));
+        }
+    }
+
+    private static Set<Var> toSet(SetFact<Var> fact) {
+        return fact.stream().collect(Collectors.toSet());
+    }
+
+    private static String message(IR ir, Stmt stmt, Var var, String kind) {
+        return String.format("%s fact of %s in %s%s", kind, stmt,
+                ir.getMethod(), var != null ? ", variable " + var : "");
+    }
+}
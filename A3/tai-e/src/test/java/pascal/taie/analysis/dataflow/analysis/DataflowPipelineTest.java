@@ -0,0 +1,75 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.analysis;
+
+import org.junit.Test;
+import pascal.taie.analysis.dataflow.DataflowTests;
+import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
+import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.SetFact;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Stmt;
+
+public class DataflowPipelineTest {
+
+    /**
+     * Registers constant propagation and live variable analysis in the
+     * pipelines of the methods, and compares the results, which are solved
+     * on the first access, with the baseline ones.
+     */
+    void testPipeline(String main, Object... options) {
+        ConstantPropagation cpBaseline = DataflowTests.newBaselineConstantPropagation();
+        LiveVariableAnalysis lvBaseline = DataflowTests.newBaselineLiveVariableAnalysis();
+        ConstantPropagation cp = DataflowTests.newConstantPropagation(options);
+        LiveVariableAnalysis lv = DataflowTests.newLiveVariableAnalysis(options);
+        for (IR ir : DataflowTests.buildIRs(main)) {
+            CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+            DataflowResult<Stmt, CPFact> constants = cp.analyze(ir);
+            DataflowResult<Stmt, SetFact<Var>> liveVars = lv.analyze(ir);
+            // access the backward result first, which solves both analyses
+            DataflowTests.assertSameLiveVars(ir,
+                    lvBaseline.getSolver().solve(cfg), liveVars);
+            DataflowTests.assertSameConstants(ir,
+                    cpBaseline.getSolver().solve(cfg), constants);
+        }
+    }
+
+    @Test
+    public void testPipeline() {
+        DataflowTests.INPUTS.forEach(main -> testPipeline(main, "pipeline", true));
+    }
+
+    /**
+     * The pipelined analyses are solved by their own solvers.
+     */
+    @Test
+    public void testPipelineOnBlocks() {
+        DataflowTests.INPUTS.forEach(main -> testPipeline(main,
+                "pipeline", true, "block", true, "stats", true));
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.analysis.dataflow.DataflowTests;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.util.Iterator;
+import java.util.List;
+
+public class CPFactTest {
+
+    /**
+     * Compares the results of constant propagation with the facts
+     * of given kind with the baseline ones on given input.
+     */
+    void testFact(String main, String fact) {
+        ConstantPropagation baseline = DataflowTests.newBaselineConstantPropagation();
+        ConstantPropagation analysis = DataflowTests.newConstantPropagation(
+                "solver", "worklist", "fact", fact);
+        for (IR ir : DataflowTests.buildIRs(main)) {
+            CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+            DataflowTests.assertSameConstants(ir,
+                    baseline.getSolver().solve(cfg), analysis.getSolver().solve(cfg));
+        }
+    }
+
+    @Test
+    public void testDenseFact() {
+        DataflowTests.INPUTS.forEach(main -> testFact(main, "dense"));
+    }
+
+    @Test
+    public void testPersistentFact() {
+        DataflowTests.INPUTS.forEach(main -> testFact(main, "persistent"));
+    }
+
+    /**
+     * The views of a fact must not change it without marking the change,
+     * otherwise copying from the fact again may be skipped wrongly.
+     */
+    @Test
+    public void testReadOnlyViews() {
+        Var var = DataflowTests.buildIRs("Loops").get(0).getVars().get(0);
+        for (CPFact fact : List.of(CPFact.newHybridFact(),
+                CPFact.newDenseFact(), CPFact.newPersistentFact())) {
+            fact.update(var, Value.makeConstant(1));
+            CPFact target = CPFact.newHybridFact();
+            target.copyFrom(fact);
+            Assert.assertThrows(UnsupportedOperationException.class,
+                    () -> fact.keySet().remove(var));
+            Iterator<Var> iterator = fact.keySet().iterator();
+            iterator.next();
+            Assert.assertThrows(UnsupportedOperationException.class, iterator::remove);
+            Assert.assertThrows(UnsupportedOperationException.class,
+                    () -> fact.entries().forEach(e -> e.setValue(Value.getNAC())));
+            // the changes via the methods of the fact are copied again
+            Assert.assertFalse(target.copyFrom(fact));
+            fact.update(var, Value.getNAC());
+            Assert.assertTrue(target.copyFrom(fact));
+            Assert.assertEquals(fact, target);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.analysis.dataflow.DataflowTests;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class ConstantQueryTest {
+
+    /**
+     * Queries the values of all variables before all statements, and
+     * compares them with the in facts of baseline constant propagation.
+     * The statements are queried in both orders, so that the queries
+     * stop at the memoized pairs from different directions.
+     */
+    void testQuery(String main) {
+        ConstantPropagation baseline = DataflowTests.newBaselineConstantPropagation();
+        for (IR ir : DataflowTests.buildIRs(main)) {
+            CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+            DataflowResult<Stmt, CPFact> expected = baseline.getSolver().solve(cfg);
+            List<Stmt> stmts = new ArrayList<>(ir.getStmts());
+            assertSameValues(ir, expected, stmts, new ConstantQuery(baseline, cfg));
+            Collections.reverse(stmts);
+            assertSameValues(ir, expected, stmts, new ConstantQuery(baseline, cfg));
+        }
+    }
+
+    private static void assertSameValues(
+            IR ir, DataflowResult<Stmt, CPFact> expected,
+            List<Stmt> stmts, ConstantQuery query) {
+        for (Stmt stmt : stmts) {
+            for (Var var : ir.getVars()) {
+                Assert.assertEquals(String.format("%s before %s in %s",
+                                var, stmt, ir.getMethod()),
+                        expected.getInFact(stmt).get(var),
+                        query.valueAt(var, stmt));
+            }
+        }
+    }
+
+    @Test
+    public void testQuery() {
+        DataflowTests.INPUTS.forEach(this::testQuery);
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.analysis.dataflow.DataflowTests;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Stmt;
+
+public class SparseCPSolverTest {
+
+    /**
+     * Sparse conditional constant propagation only evaluates the
+     * statements reachable via executable edges, thus it may be more
+     * precise than the baseline (dense) one. Hence, for each executable
+     * statement, the value of each variable given by the sparse solver
+     * must be lower than or equal to the baseline value in the lattice
+     * (i.e., its meet with the baseline value is the baseline value).
+     */
+    void testSparse(String main) {
+        ConstantPropagation baseline = DataflowTests.newBaselineConstantPropagation();
+        ConstantPropagation sparse = DataflowTests.newConstantPropagation(
+                "sparse", true);
+        for (IR ir : DataflowTests.buildIRs(main)) {
+            CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+            DataflowResult<Stmt, CPFact> expected = baseline.getSolver().solve(cfg);
+            SparseCPResult actual = (SparseCPResult) sparse.analyze(ir);
+            for (Stmt stmt : ir) {
+                if (!actual.isExecutable(stmt)) {
+                    continue;
+                }
+                for (Var var : ir.getVars()) {
+                    Value dense = expected.getOutFact(stmt).get(var);
+                    Value value = actual.getOutFact(stmt).get(var);
+                    Assert.assertEquals(String.format(
+                                    "%s of %s in %s: %s is not lower than %s",
+                                    var, stmt, ir.getMethod(), value, dense),
+                            dense, baseline.meetValue(value, dense));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSparse() {
+        DataflowTests.INPUTS.forEach(this::testSparse);
+    }
+}
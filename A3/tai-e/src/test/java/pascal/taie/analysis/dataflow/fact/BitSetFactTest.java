@@ -0,0 +1,51 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.fact;
+
+import org.junit.Test;
+import pascal.taie.analysis.dataflow.DataflowTests;
+import pascal.taie.analysis.dataflow.analysis.LiveVariableAnalysis;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.stmt.Stmt;
+
+public class BitSetFactTest {
+
+    void testLiveVars(String main) {
+        LiveVariableAnalysis baseline = DataflowTests.newBaselineLiveVariableAnalysis();
+        LiveVariableAnalysis bitSet = DataflowTests.newLiveVariableAnalysis(
+                "solver", "worklist", "fact", "bitset");
+        for (IR ir : DataflowTests.buildIRs(main)) {
+            CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+            DataflowTests.assertSameLiveVars(ir,
+                    baseline.getSolver().solve(cfg), bitSet.getSolver().solve(cfg));
+        }
+    }
+
+    @Test
+    public void testLiveVars() {
+        DataflowTests.INPUTS.forEach(this::testLiveVars);
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.solver;
+
+import org.junit.Test;
+import pascal.taie.analysis.dataflow.DataflowTests;
+import pascal.taie.analysis.dataflow.analysis.LiveVariableAnalysis;
+import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.util.List;
+
+public class BlockSolverTest {
+
+    private static final List<String> STORAGES = List.of("full", "boundary");
+
+    /**
+     * Solves the analyses on blocks with given options, and compares
+     * the results of all statements with the baseline ones.
+     * Live variable analysis is solved by gen/kill block summaries.
+     */
+    private static void testBlock(String main, Object... options) {
+        ConstantPropagation cpBaseline = DataflowTests.newBaselineConstantPropagation();
+        ConstantPropagation cp = DataflowTests.newConstantPropagation(options);
+        LiveVariableAnalysis lvBaseline = DataflowTests.newBaselineLiveVariableAnalysis();
+        LiveVariableAnalysis lv = DataflowTests.newLiveVariableAnalysis(options);
+        for (IR ir : DataflowTests.buildIRs(main)) {
+            CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+            DataflowTests.assertSameConstants(ir,
+                    cpBaseline.getSolver().solve(cfg), cp.getSolver().solve(cfg));
+            DataflowTests.assertSameLiveVars(ir,
+                    lvBaseline.getSolver().solve(cfg), lv.getSolver().solve(cfg));
+        }
+    }
+
+    @Test
+    public void testBlock() {
+        for (String main : DataflowTests.INPUTS) {
+            for (String storage : STORAGES) {
+                testBlock(main, "block", true, "storage", storage);
+                testBlock(main, "block", true, "storage", storage,
+                        "solver", "worklist");
+            }
+        }
+    }
+
+    /**
+     * Collecting statistics wraps the block solver, which should not
+     * change the results.
+     */
+    @Test
+    public void testInstrumentedBlock() {
+        for (String main : DataflowTests.INPUTS) {
+            testBlock(main, "block", true, "stats", true);
+        }
+    }
+}
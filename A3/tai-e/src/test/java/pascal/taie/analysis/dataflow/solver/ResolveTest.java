@@ -0,0 +1,176 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.solver;
+
+import org.junit.Test;
+import pascal.taie.analysis.dataflow.DataflowTests;
+import pascal.taie.analysis.dataflow.analysis.LiveVariableAnalysis;
+import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
+import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.SetFact;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Compares the results of {@link Solver#resolve} after removing each edge
+ * of the CFGs with the ones of solving the pruned CFGs from scratch.
+ */
+public class ResolveTest {
+
+    private static final List<String> KINDS = List.of("priority", "worklist", "wto");
+
+    private static void testResolve(String main, String kind) {
+        ConstantPropagation cpBaseline = DataflowTests.newBaselineConstantPropagation();
+        Solver<Stmt, CPFact> cpSolver = Solver.makeSolver(
+                DataflowTests.newConstantPropagation(), kind);
+        LiveVariableAnalysis lvBaseline = DataflowTests.newBaselineLiveVariableAnalysis();
+        Solver<Stmt, SetFact<Var>> lvSolver = Solver.makeSolver(
+                DataflowTests.newLiveVariableAnalysis(), kind);
+        for (IR ir : DataflowTests.buildIRs(main)) {
+            CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+            for (Stmt node : cfg) {
+                for (Edge<Stmt> edge : cfg.getOutEdgesOf(node)) {
+                    CFG<Stmt> pruned = new PrunedCFG(cfg, edge);
+                    DataflowResult<Stmt, CPFact> cpResult = cpSolver.solve(cfg);
+                    cpSolver.resolve(pruned, cpResult, List.of(), List.of(edge));
+                    DataflowTests.assertSameConstants(ir,
+                            cpBaseline.getSolver().solve(pruned), cpResult);
+                    DataflowResult<Stmt, SetFact<Var>> lvResult = lvSolver.solve(cfg);
+                    lvSolver.resolve(pruned, lvResult, List.of(), List.of(edge));
+                    DataflowTests.assertSameLiveVars(ir,
+                            lvBaseline.getSolver().solve(pruned), lvResult);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testResolve() {
+        for (String main : DataflowTests.INPUTS) {
+            KINDS.forEach(kind -> testResolve(main, kind));
+        }
+    }
+
+    /**
+     * View of a CFG without the given edge.
+     */
+    private static class PrunedCFG implements CFG<Stmt> {
+
+        private final CFG<Stmt> cfg;
+
+        private final Edge<Stmt> removed;
+
+        private PrunedCFG(CFG<Stmt> cfg, Edge<Stmt> removed) {
+            this.cfg = cfg;
+            this.removed = removed;
+        }
+
+        @Override
+        public IR getIR() {
+            return cfg.getIR();
+        }
+
+        @Override
+        public JMethod getMethod() {
+            return cfg.getMethod();
+        }
+
+        @Override
+        public Stmt getEntry() {
+            return cfg.getEntry();
+        }
+
+        @Override
+        public Stmt getExit() {
+            return cfg.getExit();
+        }
+
+        @Override
+        public boolean isEntry(Stmt node) {
+            return cfg.isEntry(node);
+        }
+
+        @Override
+        public boolean isExit(Stmt node) {
+            return cfg.isExit(node);
+        }
+
+        @Override
+        public boolean hasNode(Stmt node) {
+            return cfg.hasNode(node);
+        }
+
+        @Override
+        public boolean hasEdge(Stmt source, Stmt target) {
+            return getSuccsOf(source).contains(target);
+        }
+
+        @Override
+        public Set<Edge<Stmt>> getInEdgesOf(Stmt node) {
+            return cfg.getInEdgesOf(node)
+                    .stream()
+                    .filter(edge -> !edge.equals(removed))
+                    .collect(Collectors.toSet());
+        }
+
+        @Override
+        public Set<Edge<Stmt>> getOutEdgesOf(Stmt node) {
+            return cfg.getOutEdgesOf(node)
+                    .stream()
+                    .filter(edge -> !edge.equals(removed))
+                    .collect(Collectors.toSet());
+        }
+
+        @Override
+        public Set<Stmt> getPredsOf(Stmt node) {
+            return getInEdgesOf(node)
+                    .stream()
+                    .map(Edge::getSource)
+                    .collect(Collectors.toSet());
+        }
+
+        @Override
+        public Set<Stmt> getSuccsOf(Stmt node) {
+            return getOutEdgesOf(node)
+                    .stream()
+                    .map(Edge::getTarget)
+                    .collect(Collectors.toSet());
+        }
+
+        @Override
+        public Set<Stmt> getNodes() {
+            return cfg.getNodes();
+        }
+    }
+}
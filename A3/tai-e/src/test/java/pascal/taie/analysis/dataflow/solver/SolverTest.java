@@ -0,0 +1,94 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.solver;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.analysis.dataflow.DataflowTests;
+import pascal.taie.analysis.dataflow.analysis.LiveVariableAnalysis;
+import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
+import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.analysis.dataflow.fact.SetFact;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Stmt;
+
+public class SolverTest {
+
+    /**
+     * Solves given analysis on all methods of the input by the solver
+     * of given kind, and compares the results with the baseline ones.
+     *
+     * @return the number of nodes visited by the solver.
+     */
+    private static long solveConstants(String main, String kind) {
+        ConstantPropagation baseline = DataflowTests.newBaselineConstantPropagation();
+        ConstantPropagation analysis = DataflowTests.newConstantPropagation(
+                "fact", "hybrid");
+        Solver<Stmt, CPFact> solver = Solver.makeSolver(analysis, kind);
+        for (IR ir : DataflowTests.buildIRs(main)) {
+            CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+            DataflowTests.assertSameConstants(ir,
+                    baseline.getSolver().solve(cfg), solver.solve(cfg));
+        }
+        return solver.getNodeVisits();
+    }
+
+    private static long solveLiveVars(String main, String kind) {
+        LiveVariableAnalysis baseline = DataflowTests.newBaselineLiveVariableAnalysis();
+        LiveVariableAnalysis analysis = DataflowTests.newLiveVariableAnalysis(
+                "fact", "hybrid");
+        Solver<Stmt, SetFact<Var>> solver = Solver.makeSolver(analysis, kind);
+        for (IR ir : DataflowTests.buildIRs(main)) {
+            CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+            DataflowTests.assertSameLiveVars(ir,
+                    baseline.getSolver().solve(cfg), solver.solve(cfg));
+        }
+        return solver.getNodeVisits();
+    }
+
+    /**
+     * The priority solver should reach the same fixed point as the FIFO
+     * work-list solver, without visiting more nodes.
+     */
+    @Test
+    public void testPriorityNodeVisits() {
+        for (String main : DataflowTests.INPUTS) {
+            long worklist = solveConstants(main, "worklist");
+            long priority = solveConstants(main, "priority");
+            Assert.assertTrue(String.format(
+                            "constprop on %s: %d visits by priority > %d by worklist",
+                            main, priority, worklist),
+                    priority <= worklist);
+            worklist = solveLiveVars(main, "worklist");
+            priority = solveLiveVars(main, "priority");
+            Assert.assertTrue(String.format(
+                            "livevar on %s: %d visits by priority > %d by worklist",
+                            main, priority, worklist),
+                    priority <= worklist);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.solver;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.analysis.dataflow.DataflowTests;
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.analysis.LiveVariableAnalysis;
+import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.stmt.Stmt;
+
+public class WTOSolverTest {
+
+    @Test
+    public void testWTO() {
+        ConstantPropagation cpBaseline = DataflowTests.newBaselineConstantPropagation();
+        ConstantPropagation cp = DataflowTests.newConstantPropagation("solver", "wto");
+        LiveVariableAnalysis lvBaseline = DataflowTests.newBaselineLiveVariableAnalysis();
+        LiveVariableAnalysis lv = DataflowTests.newLiveVariableAnalysis("solver", "wto");
+        for (String main : DataflowTests.INPUTS) {
+            for (IR ir : DataflowTests.buildIRs(main)) {
+                CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+                DataflowTests.assertSameConstants(ir,
+                        cpBaseline.getSolver().solve(cfg), cp.getSolver().solve(cfg));
+                DataflowTests.assertSameLiveVars(ir,
+                        lvBaseline.getSolver().solve(cfg), lv.getSolver().solve(cfg));
+            }
+        }
+    }
+
+    /**
+     * The lengths of the paths from the entry never stabilize in loops,
+     * thus the solver terminates only if it widens at the loop heads.
+     */
+    @Test
+    public void testWidening() {
+        PathLengthAnalysis analysis = new PathLengthAnalysis();
+        Solver<Stmt, int[]> solver = Solver.makeSolver(analysis, "wto");
+        for (IR ir : DataflowTests.buildIRs("Loops")) {
+            CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+            DataflowResult<Stmt, int[]> result = solver.solve(cfg);
+            Assert.assertTrue("exit is not reached in " + ir.getMethod(),
+                    result.getInFact(cfg.getExit())[0] > 0);
+        }
+        Assert.assertTrue("no widening is performed on Loops",
+                analysis.widenings > 0);
+    }
+
+    /**
+     * Computes the maximum length of the paths from the entry to each
+     * node, which is infinite (i.e., {@link Integer#MAX_VALUE}) for the
+     * nodes in or after loops. A fact is a singleton array of the length,
+     * and 0 means the node is not reached yet.
+     */
+    private static class PathLengthAnalysis implements DataflowAnalysis<Stmt, int[]> {
+
+        private int widenings;
+
+        @Override
+        public boolean isForward() {
+            return true;
+        }
+
+        @Override
+        public int[] newBoundaryFact(CFG<Stmt> cfg) {
+            return new int[]{ 1 };
+        }
+
+        @Override
+        public int[] newInitialFact() {
+            return new int[]{ 0 };
+        }
+
+        @Override
+        public void meetInto(int[] fact, int[] target) {
+            target[0] = Math.max(fact[0], target[0]);
+        }
+
+        @Override
+        public boolean transferNode(Stmt stmt, int[] in, int[] out) {
+            int length = in[0] == 0 || in[0] == Integer.MAX_VALUE ?
+                    in[0] : in[0] + 1;
+            if (length != out[0]) {
+                out[0] = length;
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public boolean needTransferEdge(Edge<Stmt> edge) {
+            return false;
+        }
+
+        @Override
+        public int[] transferEdge(Edge<Stmt> edge, int[] nodeFact) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean needWidening(Stmt head) {
+            return true;
+        }
+
+        @Override
+        public void widen(Stmt head, int[] previous, int[] fact) {
+            if (previous[0] != 0 && fact[0] > previous[0]) {
+                fact[0] = Integer.MAX_VALUE;
+                ++widenings;
+            }
+        }
+    }
+}
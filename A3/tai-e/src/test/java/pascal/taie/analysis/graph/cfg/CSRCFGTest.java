@@ -0,0 +1,109 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.graph.cfg;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.analysis.dataflow.DataflowTests;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.util.graph.CSRGraph;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+public class CSRCFGTest {
+
+    private static final Comparator<String> ORDER = Comparator.naturalOrder();
+
+    /**
+     * Compares the edges (with their kinds) of the CSR snapshots of
+     * the CFGs and their reverses with the ones of the CFGs.
+     */
+    @Test
+    public void testSnapshot() {
+        for (String main : DataflowTests.INPUTS) {
+            for (IR ir : DataflowTests.buildIRs(main)) {
+                CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+                CSRGraph<Stmt> csr = CSRCFG.of(cfg);
+                Assert.assertSame(csr, CSRCFG.of(cfg));
+                CSRGraph<Stmt> reversed = CSRCFG.reversedOf(cfg);
+                Assert.assertSame(csr, reversed.reverse());
+                for (Stmt node : cfg) {
+                    List<String> outEdges = new ArrayList<>();
+                    cfg.getOutEdgesOf(node).forEach(e -> outEdges.add(toString(e)));
+                    List<String> inEdges = new ArrayList<>();
+                    cfg.getInEdgesOf(node).forEach(e -> inEdges.add(toString(e)));
+                    Assert.assertEquals(sorted(outEdges), sorted(getOutEdges(csr, node, false)));
+                    Assert.assertEquals(sorted(inEdges), sorted(getInEdges(csr, node, false)));
+                    // the out edges of the reversed graph are the in edges
+                    Assert.assertEquals(sorted(inEdges), sorted(getOutEdges(reversed, node, true)));
+                    Assert.assertEquals(sorted(outEdges), sorted(getInEdges(reversed, node, true)));
+                }
+            }
+        }
+    }
+
+    private static String toString(Edge<Stmt> edge) {
+        return toString(edge.getKind(), edge.getSource(), edge.getTarget(), false);
+    }
+
+    /**
+     * @param reversed whether the edge is in the reversed graph,
+     *                 which is printed as the edge in the original graph.
+     */
+    private static String toString(Edge.Kind kind, Stmt source, Stmt target,
+                                   boolean reversed) {
+        return reversed ? toString(kind, target, source, false) :
+                kind + ": " + source.getIndex() + " -> " + target.getIndex();
+    }
+
+    private static List<String> getOutEdges(CSRGraph<Stmt> csr, Stmt node,
+                                            boolean reversed) {
+        List<String> edges = new ArrayList<>();
+        int v = csr.getId(node);
+        for (int k = csr.getSuccStart(v); k < csr.getSuccEnd(v); ++k) {
+            edges.add(toString(CSRCFG.getKind(csr.getSuccLabel(k)),
+                    node, csr.getNode(csr.getSucc(k)), reversed));
+        }
+        return edges;
+    }
+
+    private static List<String> getInEdges(CSRGraph<Stmt> csr, Stmt node,
+                                           boolean reversed) {
+        List<String> edges = new ArrayList<>();
+        int v = csr.getId(node);
+        for (int k = csr.getPredStart(v); k < csr.getPredEnd(v); ++k) {
+            edges.add(toString(CSRCFG.getKind(csr.getPredLabel(k)),
+                    csr.getNode(csr.getPred(k)), node, reversed));
+        }
+        return edges;
+    }
+
+    private static List<String> sorted(List<String> edges) {
+        edges.sort(ORDER);
+        return edges;
+    }
+}
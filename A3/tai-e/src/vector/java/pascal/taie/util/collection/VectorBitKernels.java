@@ -0,0 +1,136 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.util.collection;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link BitKernels} based on the Vector API, which process as many words
+ * at a time as the preferred vector species of the platform holds, and
+ * the remaining words one by one. This class must be loaded only if
+ * module {@code jdk.incubator.vector} is available, and it is only built
+ * if enabled by Gradle property {@code vector}. It is loaded reflectively
+ * by {@link BitKernels}, so that the other classes do not depend on it.
+ */
+final class VectorBitKernels extends BitKernels {
+
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+    /**
+     * Short bit vectors, e.g., the sets of variables of most methods,
+     * are processed by the scalar kernels, as the setup and reduction
+     * of vectors outweigh the gain on a few words.
+     */
+    private static final int MIN_VECTOR_WORDS = 4 * SPECIES.length();
+
+    /**
+     * @return true if the platform processes more than one word at a time.
+     */
+    static boolean isProfitable() {
+        return SPECIES.length() > 1;
+    }
+
+    @Override
+    public boolean or(long[] target, long[] source, int n) {
+        if (n < MIN_VECTOR_WORDS) {
+            return scalar().or(target, source, n);
+        }
+        // changed bits are accumulated lane-wise and reduced only once
+        LongVector changed = LongVector.zero(SPECIES);
+        int i = 0;
+        for (int bound = SPECIES.loopBound(n); i < bound; i += SPECIES.length()) {
+            LongVector old = LongVector.fromArray(SPECIES, target, i);
+            LongVector result = old.or(LongVector.fromArray(SPECIES, source, i));
+            changed = changed.or(result.lanewise(VectorOperators.XOR, old));
+            result.intoArray(target, i);
+        }
+        long tail = 0;
+        for (; i < n; ++i) {
+            long old = target[i];
+            target[i] |= source[i];
+            tail |= target[i] ^ old;
+        }
+        return (changed.reduceLanes(VectorOperators.OR) | tail) != 0;
+    }
+
+    @Override
+    public boolean and(long[] target, long[] source, int n) {
+        if (n < MIN_VECTOR_WORDS) {
+            return scalar().and(target, source, n);
+        }
+        LongVector changed = LongVector.zero(SPECIES);
+        int i = 0;
+        for (int bound = SPECIES.loopBound(n); i < bound; i += SPECIES.length()) {
+            LongVector old = LongVector.fromArray(SPECIES, target, i);
+            LongVector result = old.and(LongVector.fromArray(SPECIES, source, i));
+            changed = changed.or(result.lanewise(VectorOperators.XOR, old));
+            result.intoArray(target, i);
+        }
+        long tail = 0;
+        for (; i < n; ++i) {
+            long old = target[i];
+            target[i] &= source[i];
+            tail |= target[i] ^ old;
+        }
+        return (changed.reduceLanes(VectorOperators.OR) | tail) != 0;
+    }
+
+    @Override
+    public boolean andNot(long[] target, long[] source, int n) {
+        if (n < MIN_VECTOR_WORDS) {
+            return scalar().andNot(target, source, n);
+        }
+        LongVector changed = LongVector.zero(SPECIES);
+        int i = 0;
+        for (int bound = SPECIES.loopBound(n); i < bound; i += SPECIES.length()) {
+            LongVector old = LongVector.fromArray(SPECIES, target, i);
+            LongVector result = old.lanewise(VectorOperators.AND_NOT,
+                    LongVector.fromArray(SPECIES, source, i));
+            changed = changed.or(result.lanewise(VectorOperators.XOR, old));
+            result.intoArray(target, i);
+        }
+        long tail = 0;
+        for (; i < n; ++i) {
+            long old = target[i];
+            target[i] &= ~source[i];
+            tail |= target[i] ^ old;
+        }
+        return (changed.reduceLanes(VectorOperators.OR) | tail) != 0;
+    }
+
+    /**
+     * The Vector API of JDK 17 has no lane-wise bit count, thus this
+     * counts word by word, which JIT compiles to popcnt instructions.
+     */
+    @Override
+    public int popCount(long[] words, int n) {
+        int count = 0;
+        for (int i = 0; i < n; ++i) {
+            count += Long.bitCount(words[i]);
+        }
+        return count;
+    }
+}
@@ -19,26 +19,45 @@
  * You should have received a copy of the GNU Lesser General Public
  * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
  */
-
 package pascal.taie;
 
+import pascal.taie.analysis.AnalysisScheduler;
+
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
 /**
  * Main class for assignments.
+ * <p>
+ * The plan is executed by {@link Main} by default. If the arguments start
+ * with option {@value AnalysisScheduler#THREADS_OPTION}, the plan is
+ * executed by {@link AnalysisScheduler} with given number of threads.
  */
 public class Assignment {
 
     public static void main(String[] args) {
         if (args.length > 0) {
             List<String> argList = new ArrayList<>();
+            boolean scheduled = args[0].equals(AnalysisScheduler.THREADS_OPTION);
+            // the option of the scheduler and its value go first
+            int start = scheduled ? Math.min(2, args.length) : 0;
+            for (int i = 0; i < start; ++i) {
+                argList.add(args[i]);
+            }
             Collections.addAll(argList, "-pp", "-p", "plan.yml");
-            Collections.addAll(argList, args);
-            Main.main(argList.toArray(new String[0]));
+            for (int i = start; i < args.length; ++i) {
+                argList.add(args[i]);
+            }
+            String[] mainArgs = argList.toArray(new String[0]);
+            if (scheduled) {
+                AnalysisScheduler.main(mainArgs);
+            } else {
+                Main.main(mainArgs);
+            }
         } else {
-            System.out.println("Usage: -cp <CLASS_PATH> -m <CLASS_NAME>");
+            System.out.println("Usage: [" + AnalysisScheduler.THREADS_OPTION +
+                    " <THREADS>] -cp <CLASS_PATH> -m <CLASS_NAME>");
         }
     }
 }
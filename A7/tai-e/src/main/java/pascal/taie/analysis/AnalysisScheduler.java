@@ -0,0 +1,593 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.Main;
+import pascal.taie.World;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.callgraph.CallGraphBuilder;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.config.AnalysisPlanner;
+import pascal.taie.config.ConfigException;
+import pascal.taie.config.ConfigManager;
+import pascal.taie.config.Configs;
+import pascal.taie.config.Options;
+import pascal.taie.config.PlanConfig;
+import pascal.taie.ir.IR;
+import pascal.taie.language.classes.ClassMember;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.Timer;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Executes the analyses of a plan as a DAG, where each analysis starts
+ * once all the analyses it depends on have finished, so that independent
+ * analyses may run at the same time. This is an alternative to
+ * {@link AnalysisManager}, which executes the analyses one by one, and
+ * it is opted in by invoking {@link #main(String...)} instead of
+ * {@link Main} (see {@link pascal.taie.Assignment}).
+ * <p>
+ * An analysis depends on the analyses it requires (transitively),
+ * which are figured out by {@link AnalysisPlanner}, thus they include
+ * the call graph if the scope is "reachable". Besides, process-result
+ * depends on all the other analyses, as it may release their results
+ * (see {@link ResultProcessor}).
+ * <p>
+ * As the results of all program analyses are stored in the same
+ * {@link World}, and the results of different class (method) analyses
+ * are stored in the same classes (IRs), which are not thread-safe,
+ * the analyses are scheduled as follows:
+ * <ul>
+ *     <li>At most one program analysis runs at a time.</li>
+ *     <li>The ready method analyses are run together in a single
+ *     (parallel) pass over the methods in scope, where each method is
+ *     analyzed by these analyses in turn, and a class analysis is run
+ *     in a pass by itself. At most one such pass runs at a time.</li>
+ *     <li>A program analysis runs along with a pass only if neither
+ *     of them depends (transitively) on the other kind of analyses,
+ *     thus they never access the results of each other.</li>
+ * </ul>
+ * The program analysis and the pass are run by a pool of threads,
+ * whose size is given by option {@value #THREADS_OPTION} (2 by default).
+ * If the size is 1, the analyses run one at a time.
+ * <p>
+ * The wall-clock time and the CPU time of each analysis are logged when
+ * it finishes, followed by the critical path of the plan at the end.
+ * The CPU time of a program analysis only counts the thread running it.
+ */
+public class AnalysisScheduler {
+
+    private static final Logger logger = LogManager.getLogger(AnalysisScheduler.class);
+
+    private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    /**
+     * Option of the size of the thread pool, which is given before
+     * the options of Tai-e.
+     */
+    public static final String THREADS_OPTION = "--scheduler-threads";
+
+    private static final int DEFAULT_THREADS = 2;
+
+    private final Options options;
+
+    private final ConfigManager manager;
+
+    private final AnalysisPlanner planner;
+
+    private final boolean reachable;
+
+    private final int poolSize;
+
+    private List<JClass> classScope;
+
+    private List<JMethod> methodScope;
+
+    /**
+     * @param poolSize the size of the thread pool
+     */
+    public AnalysisScheduler(Options options, int poolSize) {
+        if (poolSize < 1) {
+            throw new ConfigException("Invalid " + THREADS_OPTION + ": " + poolSize);
+        }
+        this.options = options;
+        this.poolSize = poolSize;
+        manager = new ConfigManager(
+                AnalysisConfig.parseConfigs(Configs.getAnalysisConfig()));
+        planner = new AnalysisPlanner(manager);
+        reachable = "reachable".equals(options.getScope());
+    }
+
+    /**
+     * Builds the world, and executes the plan given by the arguments
+     * as {@link Main#main(String[])} does. The arguments may start with
+     * option {@value #THREADS_OPTION}, followed by the options of Tai-e.
+     */
+    public static void main(String... args) {
+        int poolSize = DEFAULT_THREADS;
+        if (args.length > 0 && args[0].equals(THREADS_OPTION)) {
+            if (args.length < 2) {
+                throw new ConfigException("Missing value of " + THREADS_OPTION);
+            }
+            try {
+                poolSize = Integer.parseInt(args[1]);
+            } catch (NumberFormatException e) {
+                throw new ConfigException("Invalid " + THREADS_OPTION + ": " + args[1]);
+            }
+            args = Arrays.copyOfRange(args, 2, args.length);
+        }
+        String[] taieArgs = args;
+        Options options = Options.parse(taieArgs);
+        if (options.isPrintHelp() || options.isOnlyGenPlan()) {
+            // no analyses to execute
+            Main.main(taieArgs);
+            return;
+        }
+        AnalysisScheduler scheduler = new AnalysisScheduler(options, poolSize);
+        Timer.runAndCount(() -> {
+            List<AnalysisConfig> plan = scheduler.makePlan();
+            if (plan.isEmpty()) {
+                logger.info("No analyses are specified");
+                return;
+            }
+            Main.buildWorld(taieArgs);
+            scheduler.execute(plan);
+        }, "Tai-e");
+    }
+
+    /**
+     * @return the plan given by the options, either by the analyses
+     * (option "-a") or by the plan file (option "-p").
+     */
+    public List<AnalysisConfig> makePlan() {
+        List<PlanConfig> planConfigs;
+        if (!options.getAnalyses().isEmpty()) {
+            planConfigs = PlanConfig.readConfigs(options);
+            manager.overwriteOptions(planConfigs);
+            return planner.expandPlan(planConfigs, reachable);
+        } else if (options.getPlanFile() != null) {
+            planConfigs = PlanConfig.readConfigs(options.getPlanFile());
+            manager.overwriteOptions(planConfigs);
+            return planner.makePlan(planConfigs, reachable);
+        } else {
+            return List.of();
+        }
+    }
+
+    public void execute(List<AnalysisConfig> plan) {
+        List<Task> tasks = buildTasks(plan);
+        if (!reachable && mayOverlap(tasks)) {
+            // build the IRs in advance, so that the program analyses and
+            // the passes running at the same time do not build the same
+            // IR at once. If the scope is "reachable", the IRs in scope
+            // have been built when constructing the call graph.
+            getMethodScope().parallelStream().forEach(JMethod::getIR);
+        }
+        long origin = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(poolSize);
+        CompletionService<List<Task>> completion =
+                new ExecutorCompletionService<>(executor);
+        try {
+            List<Task> pending = new ArrayList<>(tasks);
+            Task program = null;
+            List<Task> pass = null;
+            while (!pending.isEmpty() || program != null || pass != null) {
+                if (program == null) {
+                    program = selectProgramTask(pending, pass);
+                    if (program != null) {
+                        Task task = program;
+                        pending.remove(task);
+                        completion.submit(() -> runProgramAnalysis(task));
+                    }
+                }
+                if (pass == null) {
+                    pass = selectPass(pending, program);
+                    if (pass != null) {
+                        List<Task> tasksInPass = pass;
+                        pending.removeAll(tasksInPass);
+                        completion.submit(() -> runPass(tasksInPass));
+                    }
+                }
+                if (program == null && pass == null) {
+                    throw new AnalysisException("Cannot schedule analyses: " + pending);
+                }
+                List<Task> finished = completion.take().get();
+                if (finished.get(0).kind == Kind.PROGRAM) {
+                    program = null;
+                } else {
+                    pass = null;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AnalysisException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            } else if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new AnalysisException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        logCriticalPath(tasks, origin);
+    }
+
+    /**
+     * @return the IDs of the analyses which each analysis in given plan
+     * depends on.
+     */
+    Map<String, List<String>> getDependencies(List<AnalysisConfig> plan) {
+        Map<String, List<String>> dependencies = new LinkedHashMap<>();
+        buildTasks(plan).forEach(task -> dependencies.put(task.config.getId(),
+                task.dependencies.stream()
+                        .map(dependency -> dependency.config.getId())
+                        .toList()));
+        return dependencies;
+    }
+
+    /**
+     * Creates the tasks of the analyses in given plan, and connects
+     * them by their dependencies. As the plan is topologically sorted,
+     * each task only depends on the tasks before it, except process-result,
+     * which is thus moved to the end.
+     */
+    private List<Task> buildTasks(List<AnalysisConfig> plan) {
+        List<AnalysisConfig> configs = new ArrayList<>(plan);
+        configs.sort(Comparator.comparing(
+                config -> config.getId().equals(ResultProcessor.ID)));
+        Map<String, Task> tasks = new LinkedHashMap<>();
+        for (AnalysisConfig config : configs) {
+            Task task = new Task(config);
+            if (config.getId().equals(ResultProcessor.ID)) {
+                task.dependencies.addAll(tasks.values());
+            } else {
+                getRequiredIds(config).forEach(id -> {
+                    Task dependency = tasks.get(id);
+                    if (dependency != null) {
+                        task.dependencies.add(dependency);
+                    }
+                });
+            }
+            for (Task dependency : task.dependencies) {
+                task.dependsOnPrograms |= dependency.kind == Kind.PROGRAM ||
+                        dependency.dependsOnPrograms;
+                task.dependsOnUnits |= dependency.kind != Kind.PROGRAM ||
+                        dependency.dependsOnUnits;
+            }
+            tasks.put(config.getId(), task);
+        }
+        return List.copyOf(tasks.values());
+    }
+
+    /**
+     * @return the IDs of the analyses required by given analysis
+     * (transitively), i.e., the ones before the analysis in the plan
+     * expanded from it.
+     */
+    private List<String> getRequiredIds(AnalysisConfig config) {
+        List<String> ids = new ArrayList<>();
+        for (AnalysisConfig required : planner.expandPlan(List.of(
+                new PlanConfig(config.getId(), config.getOptions())), reachable)) {
+            if (required.getId().equals(config.getId())) {
+                break;
+            }
+            ids.add(required.getId());
+        }
+        return ids;
+    }
+
+    /**
+     * @return true if any program analysis may run along with a pass
+     * of class or method analyses.
+     */
+    private static boolean mayOverlap(List<Task> tasks) {
+        return tasks.stream().anyMatch(t -> t.kind == Kind.PROGRAM && !t.dependsOnUnits) &&
+                tasks.stream().anyMatch(t -> t.kind != Kind.PROGRAM && !t.dependsOnPrograms);
+    }
+
+    /**
+     * @return the first ready program analysis which may run along with
+     * given pass, or null if there is no such analysis.
+     */
+    private static Task selectProgramTask(List<Task> pending, List<Task> pass) {
+        for (Task task : pending) {
+            if (task.kind == Kind.PROGRAM && task.isReady() &&
+                    (pass == null || canOverlap(task, pass))) {
+                return task;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the analyses of next pass which may run along with
+     * given program analysis, or null if there is no such analysis.
+     */
+    private static List<Task> selectPass(List<Task> pending, Task program) {
+        List<Task> pass = new ArrayList<>();
+        for (Task task : pending) {
+            if (task.kind != Kind.PROGRAM && task.isReady() &&
+                    (program == null || canOverlap(program, List.of(task)))) {
+                if (task.kind == Kind.CLASS) {
+                    if (pass.isEmpty()) {
+                        pass.add(task);
+                    }
+                    break;
+                }
+                pass.add(task);
+            }
+        }
+        return pass.isEmpty() ? null : pass;
+    }
+
+    private static boolean canOverlap(Task program, List<Task> pass) {
+        return !program.dependsOnUnits &&
+                pass.stream().noneMatch(task -> task.dependsOnPrograms);
+    }
+
+    private List<Task> runProgramAnalysis(Task task) {
+        task.start();
+        long cpuTime = getCpuTime();
+        Object analysis = newAnalysis(task.config);
+        if (analysis instanceof ProgramAnalysis programAnalysis) {
+            Object result = programAnalysis.analyze();
+            if (result != null) {
+                World.get().storeResult(programAnalysis.getId(), result);
+            }
+        } else {
+            logger.warn(analysis.getClass() + " is not an analysis");
+        }
+        task.cpuTime.add(getCpuTime() - cpuTime);
+        task.finish();
+        return List.of(task);
+    }
+
+    private List<Task> runPass(List<Task> tasks) {
+        tasks.forEach(Task::start);
+        List<Object> analyses = tasks.stream()
+                .map(task -> newAnalysis(task.config))
+                .toList();
+        if (tasks.get(0).kind == Kind.CLASS) {
+            ClassAnalysis analysis = (ClassAnalysis) analyses.get(0);
+            LongAdder cpuTime = tasks.get(0).cpuTime;
+            getClassScope().parallelStream().forEach(c -> {
+                long start = getCpuTime();
+                Object result = analysis.analyze(c);
+                if (result != null) {
+                    c.storeResult(analysis.getId(), result);
+                }
+                cpuTime.add(getCpuTime() - start);
+            });
+        } else {
+            getMethodScope().parallelStream().forEach(m -> {
+                IR ir = m.getIR();
+                for (int i = 0; i < analyses.size(); ++i) {
+                    MethodAnalysis analysis = (MethodAnalysis) analyses.get(i);
+                    long start = getCpuTime();
+                    Object result = analysis.analyze(ir);
+                    if (result != null) {
+                        ir.storeResult(analysis.getId(), result);
+                    }
+                    tasks.get(i).cpuTime.add(getCpuTime() - start);
+                }
+            });
+        }
+        tasks.forEach(Task::finish);
+        return tasks;
+    }
+
+    private static Object newAnalysis(AnalysisConfig config) {
+        try {
+            Class<?> clazz = Class.forName(config.getAnalysisClass());
+            return clazz.getConstructor(AnalysisConfig.class)
+                    .newInstance(config);
+        } catch (ClassNotFoundException | NoSuchMethodException |
+                 InstantiationException | IllegalAccessException |
+                 InvocationTargetException e) {
+            throw new AnalysisException("Failed to initialize " +
+                    config.getAnalysisClass(), e);
+        }
+    }
+
+    /**
+     * Logs the critical path of the plan, i.e., the chain of analyses
+     * ending at the last finished one, where each analysis is preceded
+     * by the last finished analysis it depends on.
+     */
+    private static void logCriticalPath(List<Task> tasks, long origin) {
+        Comparator<Task> byEndTime = Comparator.comparingLong(t -> t.endTime);
+        Task last = tasks.stream().max(byEndTime).orElse(null);
+        if (last == null) {
+            return;
+        }
+        Deque<Task> path = new ArrayDeque<>();
+        for (Task task = last; task != null;
+             task = task.dependencies.stream().max(byEndTime).orElse(null)) {
+            path.addFirst(task);
+        }
+        logger.info("Critical path ({}s): {}", toSeconds(last.endTime - origin),
+                path.stream()
+                        .map(task -> task.config.getId())
+                        .collect(Collectors.joining(" -> ")));
+    }
+
+    private static long getCpuTime() {
+        return threads.isCurrentThreadCpuTimeSupported() ?
+                threads.getCurrentThreadCpuTime() : 0;
+    }
+
+    private static String toSeconds(long nanos) {
+        return String.format("%.2f", nanos / 1e9);
+    }
+
+    private List<JClass> getClassScope() {
+        if (classScope == null) {
+            classScope = switch (options.getScope()) {
+                case "app" -> World.get()
+                        .getClassHierarchy()
+                        .applicationClasses()
+                        .toList();
+                case "all" -> World.get()
+                        .getClassHierarchy()
+                        .allClasses()
+                        .toList();
+                case "reachable" -> World.get()
+                        .<CallGraph<?, JMethod>>getResult(CallGraphBuilder.ID)
+                        .reachableMethods()
+                        .map(ClassMember::getDeclaringClass)
+                        .distinct()
+                        .toList();
+                default -> throw new ConfigException(
+                        "Unexpected scope option: " + options.getScope());
+            };
+            logger.info("{} classes in scope ({}) of class analyses",
+                    classScope.size(), options.getScope());
+        }
+        return classScope;
+    }
+
+    private List<JMethod> getMethodScope() {
+        if (methodScope == null) {
+            methodScope = switch (options.getScope()) {
+                case "app", "all" -> getClassScope()
+                        .stream()
+                        .map(JClass::getDeclaredMethods)
+                        .flatMap(Collection::stream)
+                        .filter(m -> !m.isAbstract() && !m.isNative())
+                        .toList();
+                case "reachable" -> World.get()
+                        .<CallGraph<?, JMethod>>getResult(CallGraphBuilder.ID)
+                        .reachableMethods()
+                        .toList();
+                default -> throw new ConfigException(
+                        "Unexpected scope option: " + options.getScope());
+            };
+            logger.info("{} methods in scope ({}) of method analyses",
+                    methodScope.size(), options.getScope());
+        }
+        return methodScope;
+    }
+
+    private enum Kind {
+        PROGRAM, CLASS, METHOD
+    }
+
+    /**
+     * An analysis of the plan to be scheduled.
+     */
+    private static class Task {
+
+        private final AnalysisConfig config;
+
+        /**
+         * Kind of the analysis, which is {@link Kind#PROGRAM}
+         * for the classes which are not class or method analyses.
+         */
+        private final Kind kind;
+
+        private final List<Task> dependencies = new ArrayList<>();
+
+        /**
+         * Whether this task depends on any program analysis transitively.
+         */
+        private boolean dependsOnPrograms;
+
+        /**
+         * Whether this task depends on any class or method analysis
+         * transitively.
+         */
+        private boolean dependsOnUnits;
+
+        private volatile boolean finished;
+
+        private long startTime;
+
+        private long endTime;
+
+        private final LongAdder cpuTime = new LongAdder();
+
+        private Task(AnalysisConfig config) {
+            this.config = config;
+            Class<?> clazz;
+            try {
+                clazz = Class.forName(config.getAnalysisClass());
+            } catch (ClassNotFoundException e) {
+                throw new AnalysisException("Failed to initialize " +
+                        config.getAnalysisClass(), e);
+            }
+            if (ClassAnalysis.class.isAssignableFrom(clazz)) {
+                kind = Kind.CLASS;
+            } else if (MethodAnalysis.class.isAssignableFrom(clazz)) {
+                kind = Kind.METHOD;
+            } else {
+                kind = Kind.PROGRAM;
+            }
+        }
+
+        private boolean isReady() {
+            return dependencies.stream().allMatch(dependency -> dependency.finished);
+        }
+
+        private void start() {
+            startTime = System.nanoTime();
+        }
+
+        private void finish() {
+            endTime = System.nanoTime();
+            finished = true;
+            logger.info("{} finishes in {}s (CPU time: {}s)", config.getId(),
+                    toSeconds(endTime - startTime), toSeconds(cpuTime.sum()));
+        }
+
+        @Override
+        public String toString() {
+            return config.getId();
+        }
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis;
+
+import javax.annotation.Nullable;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Compact binary format of analysis results, which is the counterpart of
+ * the (human-readable) text format for large result files.
+ * <p>
+ * A result file maps string keys, e.g., (method, analysis) pairs, to lists
+ * of lines. The file consists of a header, an index and the records:
+ * <pre>
+ * header: MAGIC, number of records (int)
+ * index:  (hash of key (long), offset of record (int)) sorted by hash
+ * record: key, number of lines (int), lines
+ * </pre>
+ * where each string is stored as its length (int) followed by its
+ * UTF-8 bytes. The file is read via memory mapping, and a record is
+ * looked up by binary search on the hashes of the keys, so that only
+ * the records being looked up are decoded.
+ */
+public final class ResultFile {
+
+    private static final byte[] MAGIC = "TAIERES1".getBytes(StandardCharsets.US_ASCII);
+
+    private static final int HEADER_SIZE = MAGIC.length + Integer.BYTES;
+
+    private static final int INDEX_ENTRY_SIZE = Long.BYTES + Integer.BYTES;
+
+    private ResultFile() {
+    }
+
+    /**
+     * @return {@code true} if given file is in the binary format.
+     */
+    public static boolean isBinary(Path path) throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            return Arrays.equals(in.readNBytes(MAGIC.length), MAGIC);
+        }
+    }
+
+    /**
+     * 64-bit FNV-1a hash of the UTF-8 bytes of the key, which is
+     * independent of the JVM that writes or reads the file.
+     */
+    private static long hash(byte[] key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    /**
+     * Collects the records, and writes them to the file when closed.
+     * The records are written in the order of their hashes (and keys),
+     * so the file is the same no matter in which order they are added.
+     */
+    public static class Writer implements AutoCloseable {
+
+        private final Path path;
+
+        private final List<Record> records = new ArrayList<>();
+
+        public Writer(Path path) {
+            this.path = path;
+        }
+
+        public synchronized void put(String key, List<String> lines) {
+            byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+            records.add(new Record(hash(bytes), key, bytes, List.copyOf(lines)));
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            records.sort(Comparator.comparingLong(Record::hash)
+                    .thenComparing(Record::key));
+            ByteArrayOutputStream data = new ByteArrayOutputStream();
+            DataOutputStream dataOut = new DataOutputStream(data);
+            int base = HEADER_SIZE + records.size() * INDEX_ENTRY_SIZE;
+            int[] offsets = new int[records.size()];
+            for (int i = 0; i < records.size(); ++i) {
+                Record record = records.get(i);
+                offsets[i] = base + dataOut.size();
+                writeBytes(dataOut, record.bytes());
+                dataOut.writeInt(record.lines().size());
+                for (String line : record.lines()) {
+                    writeBytes(dataOut, line.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(path)))) {
+                out.write(MAGIC);
+                out.writeInt(records.size());
+                for (int i = 0; i < records.size(); ++i) {
+                    out.writeLong(records.get(i).hash());
+                    out.writeInt(offsets[i]);
+                }
+                data.writeTo(out);
+            }
+        }
+
+        private static void writeBytes(DataOutputStream out, byte[] bytes)
+                throws IOException {
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        private record Record(long hash, String key, byte[] bytes, List<String> lines) {
+        }
+    }
+
+    /**
+     * Reads the records from a memory-mapped result file. The reader is
+     * safe to be used by multiple threads as it only performs absolute
+     * reads on the mapped buffer.
+     */
+    public static class Reader {
+
+        private final ByteBuffer buffer;
+
+        private final int size;
+
+        public Reader(Path path) throws IOException {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                // the mapping remains valid after the channel is closed
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            byte[] magic = new byte[MAGIC.length];
+            buffer.get(0, magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException(path + " is not a binary result file");
+            }
+            size = buffer.getInt(MAGIC.length);
+        }
+
+        /**
+         * @return the lines of given key, or {@code null} if the key is absent.
+         */
+        @Nullable
+        public List<String> get(String key) {
+            byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+            long hash = hash(bytes);
+            // find the first index entry whose hash is not less than the key's
+            int lo = 0, hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (getHash(mid) < hash) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            // resolve hash collisions by comparing the keys
+            for (int i = lo; i < size && getHash(i) == hash; ++i) {
+                int offset = getOffset(i);
+                if (Arrays.equals(readBytes(offset), bytes)) {
+                    return readLines(offset + Integer.BYTES + bytes.length);
+                }
+            }
+            return null;
+        }
+
+        /**
+         * @return all keys in this file.
+         */
+        public List<String> getKeys() {
+            List<String> keys = new ArrayList<>(size);
+            for (int i = 0; i < size; ++i) {
+                keys.add(new String(readBytes(getOffset(i)), StandardCharsets.UTF_8));
+            }
+            return keys;
+        }
+
+        private long getHash(int i) {
+            return buffer.getLong(HEADER_SIZE + i * INDEX_ENTRY_SIZE);
+        }
+
+        private int getOffset(int i) {
+            return buffer.getInt(HEADER_SIZE + i * INDEX_ENTRY_SIZE + Long.BYTES);
+        }
+
+        private byte[] readBytes(int offset) {
+            byte[] bytes = new byte[buffer.getInt(offset)];
+            buffer.get(offset + Integer.BYTES, bytes);
+            return bytes;
+        }
+
+        private List<String> readLines(int offset) {
+            int n = buffer.getInt(offset);
+            offset += Integer.BYTES;
+            List<String> lines = new ArrayList<>(n);
+            for (int i = 0; i < n; ++i) {
+                byte[] bytes = readBytes(offset);
+                lines.add(new String(bytes, StandardCharsets.UTF_8));
+                offset += Integer.BYTES + bytes.length;
+            }
+            return lines;
+        }
+    }
+}
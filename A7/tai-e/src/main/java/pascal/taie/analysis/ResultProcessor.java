@@ -28,6 +28,7 @@ import pascal.taie.World;
 import pascal.taie.analysis.graph.callgraph.CallGraph;
 import pascal.taie.analysis.graph.callgraph.CallGraphBuilder;
 import pascal.taie.config.AnalysisConfig;
+import pascal.taie.config.ConfigException;
 import pascal.taie.ir.IR;
 import pascal.taie.ir.IRPrinter;
 import pascal.taie.ir.stmt.Stmt;
@@ -41,8 +42,10 @@ import java.io.BufferedReader;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.LinkedHashSet;
@@ -61,6 +64,10 @@ import static pascal.taie.util.collection.CollectionUtils.getOne;
  * This class is designed mainly for testing purpose. Currently, it supports
  * input/output analysis results from/to file, and compare analysis results
  * with input results. This analysis should be placed after the other analyses.
+ * <p>
+ * The results are dumped in text format by default, or in the binary format
+ * of {@link ResultFile} if option "format" is "binary". The format of input
+ * results is detected automatically.
  */
 public class ResultProcessor extends ProgramAnalysis {
 
@@ -70,15 +77,37 @@ public class ResultProcessor extends ProgramAnalysis {
 
     private final String action;
 
+    /**
+     * Whether release the processed results stored in the IR of each method
+     * once the intra-procedural results of the method have been processed,
+     * so that they can be reclaimed while the remaining methods are processed.
+     * As this analysis runs after the analyses whose results it processes,
+     * this does not reduce the peak memory of those analyses.
+     */
+    private final boolean release;
+
     private PrintStream out;
 
+    /**
+     * Writer of the results in binary format, or null if the results
+     * are dumped in text format.
+     */
+    private ResultFile.Writer writer;
+
     private MultiMap<Pair<String, String>, String> inputs;
 
+    /**
+     * Reader of the input results in binary format, or null if
+     * the input results are in text format.
+     */
+    private ResultFile.Reader binaryInputs;
+
     private Set<String> mismatches;
 
     public ResultProcessor(AnalysisConfig config) {
         super(config);
         action = getOptions().getString("action");
+        release = getOptions().getBooleanOrDefault("release", false);
     }
 
     @Override
@@ -103,6 +132,13 @@ public class ResultProcessor extends ProgramAnalysis {
         if (groups.containsKey(false)) {
             processIntraResults(groups.get(false));
         }
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to write output file", e);
+            }
+        }
         if (getOptions().getBoolean("log-mismatches")) {
             mismatches.forEach(logger::info);
         }
@@ -111,7 +147,13 @@ public class ResultProcessor extends ProgramAnalysis {
 
     private void setOutput() {
         String output = getOptions().getString("file");
-        if (output != null) {
+        if ("binary".equals(getOptions().getString("format"))) {
+            if (output == null) {
+                throw new ConfigException(
+                        "Binary format requires option \"file\" of " + ID);
+            }
+            writer = new ResultFile.Writer(Path.of(output));
+        } else if (output != null) {
             try {
                 out = new PrintStream(output);
             } catch (FileNotFoundException e) {
@@ -126,6 +168,10 @@ public class ResultProcessor extends ProgramAnalysis {
         String input = getOptions().getString("file");
         Path path = Path.of(input);
         try {
+            if (ResultFile.isBinary(path)) {
+                binaryInputs = new ResultFile.Reader(path);
+                return;
+            }
             inputs = Maps.newMultiMap();
             BufferedReader reader = Files.newBufferedReader(path);
             String line;
@@ -157,6 +203,26 @@ public class ResultProcessor extends ProgramAnalysis {
         }
     }
 
+    /**
+     * @return the input results of given method and analysis.
+     */
+    private Set<String> getInputs(JMethod method, String id) {
+        if (binaryInputs != null) {
+            List<String> lines = binaryInputs.get(getKey(method, id));
+            return lines != null ? new LinkedHashSet<>(lines) : Set.of();
+        } else {
+            return inputs.get(new Pair<>(method.toString(), id));
+        }
+    }
+
+    /**
+     * @return the key of the results of given method and analysis
+     * in binary format.
+     */
+    private static String getKey(JMethod method, String id) {
+        return method + " (" + id + ")";
+    }
+
     private void processInterResults(List<String> analyses) {
         Comparator<JMethod> comp = (m1, m2) -> {
             if (m1.getDeclaringClass().equals(m2.getDeclaringClass())) {
@@ -185,7 +251,7 @@ public class ResultProcessor extends ProgramAnalysis {
                     .filter(m -> m.getDeclaringClass().isApplication())
                     .sorted(comp);
         }
-        processResults(methods, analyses, (m, id) -> World.get().getResult(id));
+        processResults(methods, analyses, (m, id) -> World.get().getResult(id), false);
     }
 
     private void processIntraResults(List<String> analyses) {
@@ -197,34 +263,53 @@ public class ResultProcessor extends ProgramAnalysis {
                 .filter(m -> !m.isAbstract() && !m.isNative())
                 .sorted(Comparator.comparing(m ->
                         m.getIR().getStmt(0).getLineNumber()));
-        processResults(methods, analyses, (m, id) -> m.getIR().getResult(id));
+        processResults(methods, analyses, (m, id) -> m.getIR().getResult(id), release);
     }
 
+    /**
+     * @param release whether release the results stored in the IR of
+     *                each method after processing it. The intra-procedural
+     *                results are processed after the inter-procedural ones,
+     *                so the results can be released only at that stage.
+     */
     private void processResults(Stream<JMethod> methods, List<String> analyses,
-                                BiFunction<JMethod, String, ?> resultGetter) {
-        methods.forEach(method ->
-                analyses.forEach(id -> {
-                    switch (action) {
-                        case "dump" -> dumpResult(method, id, resultGetter);
-                        case "compare" -> compareResult(method, id, resultGetter);
-                    }
-                })
-        );
+                                BiFunction<JMethod, String, ?> resultGetter,
+                                boolean release) {
+        methods.forEach(method -> {
+            analyses.forEach(id -> {
+                switch (action) {
+                    case "dump" -> dumpResult(method, id, resultGetter);
+                    case "compare" -> compareResult(method, id, resultGetter);
+                }
+            });
+            if (release) {
+                // the processed results of this method are no longer needed,
+                // while the other results stored in the IR, e.g., CFG, are kept,
+                // as they may still be used by the analyses running concurrently
+                analyses.forEach(method.getIR()::clearResult);
+            }
+        });
     }
 
     private void dumpResult(JMethod method, String id,
                             BiFunction<JMethod, String, ?> resultGetter) {
-        out.printf("-------------------- %s (%s) --------------------%n", method, id);
+        List<String> lines = new ArrayList<>();
         Object result = resultGetter.apply(method, id);
         if (result instanceof Set) {
-            ((Set<?>) result).forEach(e -> out.println(toString(e)));
+            ((Set<?>) result).forEach(e -> lines.add(toString(e)));
         } else if (result instanceof StmtResult<?> StmtResult) {
             IR ir = method.getIR();
-            ir.forEach(stmt -> out.println(toString(stmt, StmtResult)));
+            ir.forEach(stmt -> lines.add(toString(stmt, StmtResult)));
+        } else {
+            lines.add(toString(result));
+        }
+        if (writer != null) {
+            writer.put(getKey(method, id), lines);
         } else {
-            out.println(toString(result));
+            out.printf("-------------------- %s (%s) --------------------%n", method, id);
+            lines.forEach(out::println);
+            out.println();
         }
-        out.println();
     }
 
     /**
@@ -249,7 +334,7 @@ public class ResultProcessor extends ProgramAnalysis {
 
     private void compareResult(JMethod method, String id,
                                BiFunction<JMethod, String, ?> resultGetter) {
-        Set<String> inputResult = inputs.get(new Pair<>(method.toString(), id));
+        Set<String> inputResult = getInputs(method, id);
         Object result = resultGetter.apply(method, id);
         if (result instanceof Set) {
             Set<String> given = ((Set<?>) result)
@@ -269,10 +354,9 @@ public class ResultProcessor extends ProgramAnalysis {
                 }
             });
         } else if (result instanceof StmtResult<?> StmtResult) {
-            Set<String> lines = inputs.get(new Pair<>(method.toString(), id));
             // if the expected input does not contain the results
             // for the given method, just skip
-            if (lines.isEmpty()) {
+            if (inputResult.isEmpty()) {
                 return;
             }
             IR ir = method.getIR();
@@ -280,7 +364,7 @@ public class ResultProcessor extends ProgramAnalysis {
                 String stmtStr = toString(stmt);
                 String given = toString(stmt, StmtResult);
                 boolean foundExpeceted = false;
-                for (String line : lines) {
+                for (String line : inputResult) {
                     if (line.startsWith(stmtStr)) {
                         foundExpeceted = true;
                         if (!line.equals(given)) {
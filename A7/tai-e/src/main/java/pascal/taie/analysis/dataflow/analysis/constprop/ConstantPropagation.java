@@ -38,8 +38,26 @@ public class ConstantPropagation extends
 
     public static final String ID = "constprop";
 
+    /**
+     * Representation of {@link CPFact}, which can be "hybrid" (default),
+     * i.e., hash-based, "dense", i.e., array-based, or "persistent",
+     * i.e., based on persistent hash trie.
+     */
+    private final String factKind;
+
     public ConstantPropagation(AnalysisConfig config) {
         super(config);
+        factKind = getOptions().getString("fact");
+    }
+
+    private CPFact newFact() {
+        if ("dense".equals(factKind)) {
+            return CPFact.newDenseFact();
+        } else if ("persistent".equals(factKind)) {
+            return CPFact.newPersistentFact();
+        } else {
+            return new CPFact();
+        }
     }
 
     @Override
@@ -50,7 +68,7 @@ public class ConstantPropagation extends
     @Override
     public CPFact newBoundaryFact(CFG<Stmt> cfg) {
         // TODO - finish me
-        CPFact cpFact = new CPFact();
+        CPFact cpFact = newFact();
         for (Var var : cfg.getIR().getParams()) {
             if (canHoldInt(var)) {
                 cpFact.update(var, Value.getNAC());
@@ -62,12 +80,22 @@ public class ConstantPropagation extends
     @Override
     public CPFact newInitialFact() {
         // TODO - finish me
-        return new CPFact(); // use absence to represent UNDEF
+        return newFact(); // use absence to represent UNDEF
     }
 
     @Override
     public void meetInto(CPFact fact, CPFact target) {
         // TODO - finish me
+        if (fact.isDense() && target.isDense()) {
+            target.meetDense(fact);
+            return;
+        }
+        if (target.keySet().isEmpty()) {
+            // UNDEF is the identity of meet, and copying a persistent
+            // fact shares its structure
+            target.copyFrom(fact);
+            return;
+        }
         for (Var key : fact.keySet()) {
             target.update(key, meetValue(fact.get(key), target.get(key)));
         }
@@ -104,11 +132,11 @@ public class ConstantPropagation extends
         if (_def.isPresent()) {
             LValue def = _def.get();
             if (def instanceof Var && stmt instanceof DefinitionStmt<?, ?> definitionStmt) {
-                CPFact prev_out = out.copy();
-                out.copyFrom(in);
-                out.update((Var) def, evaluate(definitionStmt.getRValue(), in));
-                CPFact curr_out = out.copy();
-                return !curr_out.equals(prev_out);
+                // update out fact in place, the updates themselves
+                // tell whether it changes, thus no copy is needed
+                Value value = evaluate(definitionStmt, (Var) def, in);
+                boolean changed = out.copyFromExcept(in, (Var) def);
+                return out.update((Var) def, value) || changed;
             } else {
                 return out.copyFrom(in); // identity function
             }
@@ -117,6 +145,14 @@ public class ConstantPropagation extends
         }
     }
 
+    /**
+     * Evaluates the right-hand side of given definition by its precompiled
+     * evaluator, which is cached in the IR containing the definition.
+     */
+    private static Value evaluate(DefinitionStmt<?, ?> stmt, Var def, CPFact in) {
+        return Evaluators.of(def.getMethod().getIR()).get(stmt).evaluate(in);
+    }
+
     /**
      * @return true if the given variable can hold integer value, otherwise false.
      */
@@ -136,137 +172,16 @@ public class ConstantPropagation extends
     }
 
     /**
-     * Evaluates the {@link Value} of given expression.
+     * Evaluates the {@link Value} of given expression. The expression is
+     * compiled (see {@link Evaluators}) on each call, thus the expressions
+     * evaluated repeatedly should use the evaluators precompiled by
+     * {@link Evaluators#of(pascal.taie.ir.IR)} instead.
      *
      * @param exp the expression to be evaluated
      * @param in  IN fact of the statement
      * @return the resulting {@link Value}
      */
     public static Value evaluate(Exp exp, CPFact in) {
-        // TODO - finish me
-        if (exp instanceof IntLiteral intLiteral) {
-            // CPFact unused
-            return Value.makeConstant(intLiteral.getValue());
-        }
-
-        if (exp instanceof Var var) {
-            // e.g. y = 1; x = y;
-            return in.get(var);
-        }
-
-        if (exp instanceof BinaryExp binaryExp) {
-            // recursive
-            Value op1 = evaluate(binaryExp.getOperand1(), in);
-            Value op2 = evaluate(binaryExp.getOperand2(), in);
-            if (op1.isNAC() || op2.isNAC()) {
-                return Value.getNAC();
-            }
-            if (op1.isConstant() && op2.isConstant()) {
-                int op1Literal = op1.getConstant();
-                int op2Literal = op2.getConstant();
-                BinaryExp.Op op = binaryExp.getOperator();
-                switch (op.toString()) {
-                    case "+":
-                        return Value.makeConstant(op1Literal + op2Literal);
-                    case "-":
-                        return Value.makeConstant(op1Literal - op2Literal);
-                    case "*":
-                        return Value.makeConstant(op1Literal * op2Literal);
-                    case "/":
-                        if (op2Literal == 0) {
-                            return Value.getUndef();
-                        }
-                        return Value.makeConstant(op1Literal / op2Literal);
-                    case "%":
-                        if (op2Literal == 0) {
-                            return Value.getUndef();
-                        }
-                        return Value.makeConstant(op1Literal % op2Literal);
-
-                    case "|":
-                        return Value.makeConstant(op1Literal | op2Literal);
-                    case "&":
-                        return Value.makeConstant(op1Literal & op2Literal);
-                    case "^":
-                        return Value.makeConstant(op1Literal ^ op2Literal);
-
-                    case "==":
-                        if (op1Literal == op2Literal)
-                            return Value.makeConstant(1);
-                        else
-                            return Value.makeConstant(0);
-                    case "!=":
-                        if (op1Literal != op2Literal)
-                            return Value.makeConstant(1);
-                        else
-                            return Value.makeConstant(0);
-                    case "<":
-                        if (op1Literal < op2Literal)
-                            return Value.makeConstant(1);
-                        else
-                            return Value.makeConstant(0);
-                    case ">":
-                        if (op1Literal > op2Literal)
-                            return Value.makeConstant(1);
-                        else
-                            return Value.makeConstant(0);
-                    case "<=":
-                        if (op1Literal <= op2Literal)
-                            return Value.makeConstant(1);
-                        else
-                            return Value.makeConstant(0);
-                    case ">=":
-                        if (op1Literal >= op2Literal)
-                            return Value.makeConstant(1);
-                        else
-                            return Value.makeConstant(0);
-
-                    case "<<":
-                        return Value.makeConstant(op1Literal << op2Literal);
-                    case ">>":
-                        return Value.makeConstant(op1Literal >> op2Literal);
-                    case ">>>":
-                        return Value.makeConstant(op1Literal >>> op2Literal);
-
-                }
-            }
-            return Value.getUndef(); // note
-        }
-
-        if (exp instanceof NewExp) {
-            return Value.getUndef();
-        }
-
-        if (exp instanceof FieldAccess fieldAccess) {
-            Type type = fieldAccess.getFieldRef().getType();
-            if (type instanceof PrimitiveType) {
-                switch ((PrimitiveType) type) {
-                    case BYTE:
-                    case SHORT:
-                    case INT:
-                    case CHAR:
-                    case BOOLEAN:
-                        return Value.getNAC();
-                }
-            }
-            return Value.getUndef();
-        }
-
-        if (exp instanceof ArrayAccess arrayAccess) {
-            Type type = arrayAccess.getType();
-            if (type instanceof PrimitiveType) {
-                switch ((PrimitiveType) type) {
-                    case BYTE:
-                    case SHORT:
-                    case INT:
-                    case CHAR:
-                    case BOOLEAN:
-                        return Value.getNAC();
-                }
-            }
-            return Value.getUndef();
-        }
-
-        return Value.getNAC(); // note
+        return Evaluators.compile(exp).evaluate(in);
     }
 }
@@ -0,0 +1,528 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.fact;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Map backed by a persistent hash array mapped trie.
+ * <p>
+ * The nodes of the trie are immutable: an update copies only the nodes
+ * on the path from the root to the updated entry, and shares all other
+ * nodes, and this map merely points to the current root. Therefore,
+ * copying a map by {@link #PersistentMap(PersistentMap)} takes constant
+ * time, and the copies share their structure until they are updated.
+ * Moreover, the shape of the trie is determined by the keys it contains,
+ * thus the equality test skips the subtrees shared by two maps.
+ * <p>
+ * This map does not permit null keys or values.
+ *
+ * @param <K> type of keys
+ * @param <V> type of values
+ */
+public class PersistentMap<K, V> extends AbstractMap<K, V> {
+
+    /**
+     * Number of hash bits consumed by each level of the trie.
+     */
+    private static final int BITS = 5;
+
+    private static final int MASK = (1 << BITS) - 1;
+
+    /**
+     * Root of the trie, or null if this map is empty.
+     */
+    private Node root;
+
+    private int size;
+
+    public PersistentMap() {
+    }
+
+    /**
+     * Constructs a new map with the same mappings as other map,
+     * which shares the structure of other map.
+     */
+    public PersistentMap(PersistentMap<K, V> other) {
+        assign(other);
+    }
+
+    /**
+     * Sets the content of this map to the same as other map,
+     * which shares the structure of other map.
+     */
+    public void assign(PersistentMap<K, V> other) {
+        root = other.root;
+        size = other.size;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return find(key) != null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        Leaf leaf = find(key);
+        return leaf != null ? (V) leaf.value : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V put(K key, V value) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+        Leaf old = find(key);
+        if (old == null) {
+            ++size;
+        } else if (old.value.equals(value)) {
+            // keep the trie unchanged, so that it is still shared
+            return value;
+        }
+        root = put(root, new Leaf(hash(key), key, value), 0);
+        return old != null ? (V) old.value : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(Object key) {
+        Leaf old = find(key);
+        if (old == null) {
+            return null;
+        }
+        root = remove(root, old, 0);
+        --size;
+        return (V) old.value;
+    }
+
+    @Override
+    public void clear() {
+        root = null;
+        size = 0;
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<>() {
+
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o instanceof PersistentMap<?, ?> other) {
+            return size == other.size && equals(root, other.root);
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode();
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * @return the bit which represents the given hash at given level
+     * in the bitmap of a branch.
+     */
+    private static int bit(int hash, int shift) {
+        return 1 << ((hash >>> shift) & MASK);
+    }
+
+    /**
+     * @return the index of the child represented by given bit
+     * in the children of a branch.
+     */
+    private static int index(int bitmap, int bit) {
+        return Integer.bitCount(bitmap & (bit - 1));
+    }
+
+    private Leaf find(Object key) {
+        if (key == null) {
+            return null;
+        }
+        int hash = hash(key);
+        Node node = root;
+        int shift = 0;
+        while (node instanceof Branch branch) {
+            int bit = bit(hash, shift);
+            if ((branch.bitmap & bit) == 0) {
+                return null;
+            }
+            node = branch.children[index(branch.bitmap, bit)];
+            shift += BITS;
+        }
+        if (node instanceof Leaf leaf) {
+            return leaf.hash == hash && leaf.key.equals(key) ? leaf : null;
+        } else if (node instanceof Collision collision) {
+            return collision.hash == hash ? collision.find(key) : null;
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * @return the node which results from putting given leaf into
+     * given node, where the node is at the level of given shift.
+     */
+    private static Node put(Node node, Leaf leaf, int shift) {
+        if (node == null) {
+            return leaf;
+        } else if (node instanceof Branch branch) {
+            int bit = bit(leaf.hash, shift);
+            int i = index(branch.bitmap, bit);
+            Node[] children;
+            if ((branch.bitmap & bit) == 0) {
+                int n = branch.children.length;
+                children = new Node[n + 1];
+                System.arraycopy(branch.children, 0, children, 0, i);
+                children[i] = leaf;
+                System.arraycopy(branch.children, i, children, i + 1, n - i);
+            } else {
+                children = branch.children.clone();
+                children[i] = put(children[i], leaf, shift + BITS);
+            }
+            return new Branch(branch.bitmap | bit, children);
+        } else {
+            Bucket bucket = (Bucket) node;
+            if (bucket.hash != leaf.hash) {
+                return merge(bucket, leaf, shift);
+            } else if (bucket instanceof Leaf other) {
+                return other.key.equals(leaf.key) ? leaf :
+                        new Collision(leaf.hash, new Leaf[]{ other, leaf });
+            } else {
+                return ((Collision) bucket).put(leaf);
+            }
+        }
+    }
+
+    /**
+     * @return the branch at the level of given shift, which holds two
+     * buckets of different hashes.
+     */
+    private static Branch merge(Bucket b1, Bucket b2, int shift) {
+        int i1 = (b1.hash >>> shift) & MASK;
+        int i2 = (b2.hash >>> shift) & MASK;
+        if (i1 == i2) {
+            return new Branch(1 << i1,
+                    new Node[]{ merge(b1, b2, shift + BITS) });
+        } else {
+            return new Branch((1 << i1) | (1 << i2), i1 < i2 ?
+                    new Node[]{ b1, b2 } : new Node[]{ b2, b1 });
+        }
+    }
+
+    /**
+     * @return the node which results from removing given leaf (which must
+     * be in the trie) from given node, or null if the node becomes empty.
+     * A branch never holds a single bucket, which is pulled up instead,
+     * so that the shape of the trie only depends on its keys.
+     */
+    private static Node remove(Node node, Leaf leaf, int shift) {
+        if (node instanceof Branch branch) {
+            int bit = bit(leaf.hash, shift);
+            int i = index(branch.bitmap, bit);
+            Node child = remove(branch.children[i], leaf, shift + BITS);
+            int n = branch.children.length;
+            if (child == null) {
+                if (n == 1) {
+                    return null;
+                } else if (n == 2 && !(branch.children[1 - i] instanceof Branch)) {
+                    return branch.children[1 - i];
+                }
+                Node[] children = new Node[n - 1];
+                System.arraycopy(branch.children, 0, children, 0, i);
+                System.arraycopy(branch.children, i + 1, children, i, n - i - 1);
+                return new Branch(branch.bitmap & ~bit, children);
+            } else if (n == 1 && !(child instanceof Branch)) {
+                return child;
+            } else {
+                Node[] children = branch.children.clone();
+                children[i] = child;
+                return new Branch(branch.bitmap, children);
+            }
+        } else if (node instanceof Collision collision) {
+            return collision.remove(leaf.key);
+        } else {
+            return null;
+        }
+    }
+
+    private static boolean equals(Node n1, Node n2) {
+        if (n1 == n2) {
+            return true;
+        }
+        if (n1 instanceof Branch b1 && n2 instanceof Branch b2) {
+            if (b1.bitmap != b2.bitmap) {
+                return false;
+            }
+            for (int i = 0; i < b1.children.length; ++i) {
+                if (!equals(b1.children[i], b2.children[i])) {
+                    return false;
+                }
+            }
+            return true;
+        } else if (n1 instanceof Leaf l1 && n2 instanceof Leaf l2) {
+            return l1.hash == l2.hash && l1.key.equals(l2.key)
+                    && l1.value.equals(l2.value);
+        } else if (n1 instanceof Collision c1 && n2 instanceof Collision c2) {
+            if (c1.hash != c2.hash || c1.leaves.length != c2.leaves.length) {
+                return false;
+            }
+            for (Leaf leaf : c1.leaves) {
+                Leaf other = c2.find(leaf.key);
+                if (other == null || !leaf.value.equals(other.value)) {
+                    return false;
+                }
+            }
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    private static abstract class Node {
+    }
+
+    /**
+     * Inner node of the trie, whose bitmap tells which of the
+     * 2<sup>{@link #BITS}</sup> slots are present in its children.
+     */
+    private static final class Branch extends Node {
+
+        private final int bitmap;
+
+        private final Node[] children;
+
+        private Branch(int bitmap, Node[] children) {
+            this.bitmap = bitmap;
+            this.children = children;
+        }
+    }
+
+    /**
+     * Node which holds the entries of the same hash.
+     */
+    private static abstract class Bucket extends Node {
+
+        final int hash;
+
+        private Bucket(int hash) {
+            this.hash = hash;
+        }
+    }
+
+    private static final class Leaf extends Bucket
+            implements Map.Entry<Object, Object> {
+
+        private final Object key;
+
+        private final Object value;
+
+        private Leaf(int hash, Object key, Object value) {
+            super(hash);
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public Object getKey() {
+            return key;
+        }
+
+        @Override
+        public Object getValue() {
+            return value;
+        }
+
+        @Override
+        public Object setValue(Object value) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Map.Entry<?, ?> e
+                    && key.equals(e.getKey()) && value.equals(e.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return key.hashCode() ^ value.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
+    }
+
+    /**
+     * Bucket of the entries whose keys are different but have
+     * the same hash.
+     */
+    private static final class Collision extends Bucket {
+
+        private final Leaf[] leaves;
+
+        private Collision(int hash, Leaf[] leaves) {
+            super(hash);
+            this.leaves = leaves;
+        }
+
+        private Leaf find(Object key) {
+            for (Leaf leaf : leaves) {
+                if (leaf.key.equals(key)) {
+                    return leaf;
+                }
+            }
+            return null;
+        }
+
+        private Collision put(Leaf leaf) {
+            Leaf[] newLeaves;
+            for (int i = 0; i < leaves.length; ++i) {
+                if (leaves[i].key.equals(leaf.key)) {
+                    newLeaves = leaves.clone();
+                    newLeaves[i] = leaf;
+                    return new Collision(hash, newLeaves);
+                }
+            }
+            newLeaves = new Leaf[leaves.length + 1];
+            System.arraycopy(leaves, 0, newLeaves, 0, leaves.length);
+            newLeaves[leaves.length] = leaf;
+            return new Collision(hash, newLeaves);
+        }
+
+        private Bucket remove(Object key) {
+            if (leaves.length == 2) {
+                return leaves[0].key.equals(key) ? leaves[1] : leaves[0];
+            }
+            Leaf[] newLeaves = new Leaf[leaves.length - 1];
+            int j = 0;
+            for (Leaf leaf : leaves) {
+                if (!leaf.key.equals(key)) {
+                    newLeaves[j++] = leaf;
+                }
+            }
+            return new Collision(hash, newLeaves);
+        }
+    }
+
+    /**
+     * Iterates over a snapshot of the trie, i.e., the trie at the time
+     * when the iterator is created, in depth-first order.
+     */
+    private class EntryIterator implements Iterator<Entry<K, V>> {
+
+        private final Deque<Node> stack = new ArrayDeque<>();
+
+        private Leaf next;
+
+        private Leaf last;
+
+        private EntryIterator() {
+            if (root != null) {
+                stack.push(root);
+            }
+            next = advance();
+        }
+
+        private Leaf advance() {
+            while (!stack.isEmpty()) {
+                Node node = stack.pop();
+                if (node instanceof Leaf leaf) {
+                    return leaf;
+                }
+                Node[] children = node instanceof Branch branch ?
+                        branch.children : ((Collision) node).leaves;
+                for (int i = children.length - 1; i >= 0; --i) {
+                    stack.push(children[i]);
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Entry<K, V> next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            last = next;
+            next = advance();
+            return (Entry<K, V>) (Entry<?, ?>) last;
+        }
+
+        @Override
+        public void remove() {
+            if (last == null) {
+                throw new IllegalStateException();
+            }
+            PersistentMap.this.remove(last.key);
+            last = null;
+        }
+    }
+}
@@ -25,6 +25,7 @@ package pascal.taie.analysis.dataflow.inter;
 import pascal.taie.World;
 import pascal.taie.analysis.ProgramAnalysis;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.solver.SolverStatsDumper;
 import pascal.taie.analysis.graph.icfg.CallEdge;
 import pascal.taie.analysis.graph.icfg.CallToReturnEdge;
 import pascal.taie.analysis.graph.icfg.ICFG;
@@ -121,9 +122,16 @@ public abstract class AbstractInterDataflowAnalysis<Method, Node, Fact>
     public Object analyze() {
         icfg = World.get().getResult(ICFGBuilder.ID);
         initialize();
-        solver = new InterSolver<>(this, icfg);
+        // dumping statistics implies collecting them
+        String statsFile = getOptions().getString("stats-file");
+        solver = new InterSolver<>(this, icfg,
+                getOptions().getBooleanOrDefault("stats", false) || statsFile != null);
         DataflowResult<Node, Fact> result = solver.solve();
         finish();
+        if (statsFile != null) {
+            SolverStatsDumper dumper = new SolverStatsDumper(statsFile);
+            result.getStats().forEach(dumper::dump);
+        }
         return result;
     }
 }
@@ -60,7 +60,9 @@ public class InterConstantPropagation extends
 
     public InterConstantPropagation(AnalysisConfig config) {
         super(config);
-        cp = new ConstantPropagation(new AnalysisConfig(ConstantPropagation.ID));
+        // pass the fact representation to the intraprocedural analysis
+        cp = new ConstantPropagation(new AnalysisConfig(ConstantPropagation.ID,
+                "fact", getOptions().getString("fact")));
     }
 
     @Override
@@ -160,11 +162,8 @@ public class InterConstantPropagation extends
             }
 
             // do not call intra-transferNode
-            CPFact prev_out = out.copy();
-            out.copyFrom(in);
-            out.update(loadArray.getLValue(), value);
-            CPFact curr_out = out.copy();
-            return !curr_out.equals(prev_out);
+            boolean changed = out.copyFromExcept(in, loadArray.getLValue());
+            return out.update(loadArray.getLValue(), value) || changed;
         }
 
         // e.g. T.f = x
@@ -205,11 +204,8 @@ public class InterConstantPropagation extends
             }
 
             // do not call intra-transferNode
-            CPFact prev_out = out.copy();
-            out.copyFrom(in);
-            out.update(loadField.getLValue(), value);
-            CPFact curr_out = out.copy();
-            return !curr_out.equals(prev_out);
+            boolean changed = out.copyFromExcept(in, loadField.getLValue());
+            return out.update(loadField.getLValue(), value) || changed;
         }
 
         // e.g. o.f = x
@@ -254,11 +250,8 @@ public class InterConstantPropagation extends
             }
 
             // do not call intra-transferNode
-            CPFact prev_out = out.copy();
-            out.copyFrom(in);
-            out.update(loadField.getLValue(), value);
-            CPFact curr_out = out.copy();
-            return !curr_out.equals(prev_out);
+            boolean changed = out.copyFromExcept(in, loadField.getLValue());
+            return out.update(loadField.getLValue(), value) || changed;
         }
 
         return cp.transferNode(stmt, in, out);
@@ -292,7 +285,7 @@ public class InterConstantPropagation extends
     @Override
     protected CPFact transferCallEdge(CallEdge<Stmt> edge, CPFact callSiteOut) {
         // TODO - finish me
-        CPFact res = new CPFact();
+        CPFact res = cp.newInitialFact();
 
         assert edge.getSource() instanceof Invoke;
         Invoke srcStmt = (Invoke) edge.getSource();
@@ -314,7 +307,7 @@ public class InterConstantPropagation extends
     @Override
     protected CPFact transferReturnEdge(ReturnEdge<Stmt> edge, CPFact returnOut) {
         // TODO - finish me
-        CPFact res = new CPFact();
+        CPFact res = cp.newInitialFact();
 
         Stmt callStmt = edge.getCallSite();
         assert callStmt instanceof Invoke;
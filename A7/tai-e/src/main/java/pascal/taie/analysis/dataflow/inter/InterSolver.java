@@ -23,11 +23,16 @@
 package pascal.taie.analysis.dataflow.inter;
 
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.solver.SolverStats;
 import pascal.taie.analysis.graph.icfg.ICFG;
 import pascal.taie.analysis.graph.icfg.ICFGEdge;
+import pascal.taie.language.classes.JMethod;
 import pascal.taie.util.collection.SetQueue;
 
+import javax.annotation.Nullable;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
+import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -47,19 +52,44 @@ class InterSolver<Method, Node, Fact> {
 
     private Queue<Node> workList;
 
+    /**
+     * Statistics of each method, which are collected only if
+     * the instrumentation is enabled, and null otherwise.
+     */
+    @Nullable
+    private final Map<Method, SolverStats> stats;
+
     InterSolver(InterDataflowAnalysis<Node, Fact> analysis,
-                ICFG<Method, Node> icfg) {
+                ICFG<Method, Node> icfg, boolean collectStats) {
         this.analysis = analysis;
         this.icfg = icfg;
+        this.stats = collectStats ? new LinkedHashMap<>() : null;
     }
 
     DataflowResult<Node, Fact> solve() {
         result = new DataflowResult<>();
         initialize();
         doSolve();
+        if (stats != null) {
+            for (Node node : icfg) {
+                getStats(node).addFact(result.getOutFact(node));
+            }
+            stats.values().forEach(result::addStats);
+        }
         return result;
     }
 
+    /**
+     * @return the statistics of the method containing given node.
+     * The work-list is shared by all methods, thus the peak work-list
+     * size of a method is the one observed when visiting its nodes.
+     */
+    private SolverStats getStats(Node node) {
+        return stats.computeIfAbsent(icfg.getContainingMethodOf(node),
+                // ICFG of Tai-e is always on JMethod
+                method -> new SolverStats((JMethod) method));
+    }
+
     private void initialize() {
         // TODO - finish me
         workList = new LinkedList<>();
@@ -85,12 +115,23 @@ class InterSolver<Method, Node, Fact> {
         }
 
         while (!workList.isEmpty()) {
+            SolverStats nodeStats = null;
+            long start = 0;
+            if (stats != null) {
+                start = System.nanoTime();
+                nodeStats = getStats(workList.peek());
+                nodeStats.updateWorkListSize(workList.size());
+                nodeStats.addNodeVisits(1);
+            }
             Node node = workList.remove();
 
             Fact node_in_fact = result.getInFact(node);
             for (ICFGEdge<Node> pred_edge : icfg.getInEdgesOf(node)) {
                 Fact pred_fact = analysis.transferEdge(pred_edge, result.getOutFact(pred_edge.getSource()));
                 analysis.meetInto(pred_fact, node_in_fact);
+                if (nodeStats != null) {
+                    nodeStats.addMeet();
+                }
             }
             result.setInFact(node, node_in_fact);
 
@@ -101,6 +142,12 @@ class InterSolver<Method, Node, Fact> {
             if (changed) {
                 workList.addAll(icfg.getSuccsOf(node));
             }
+            if (nodeStats != null) {
+                if (changed) {
+                    nodeStats.addChange();
+                }
+                nodeStats.addElapsedNanos(System.nanoTime() - start);
+            }
         }
     }
 
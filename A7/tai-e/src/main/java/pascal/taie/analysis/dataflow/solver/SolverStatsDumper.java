@@ -0,0 +1,52 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.solver;
+
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+
+/**
+ * Dumps {@link SolverStats} to a file as tab-separated rows, one for each
+ * method. As the methods may be solved in parallel, the rows are not
+ * necessarily in the order of the methods.
+ */
+public class SolverStatsDumper {
+
+    private final PrintStream out;
+
+    public SolverStatsDumper(String file) {
+        try {
+            // flush each row, as there is no point to close the file
+            out = new PrintStream(new FileOutputStream(file), true);
+        } catch (FileNotFoundException e) {
+            throw new RuntimeException("Failed to open stats file", e);
+        }
+        out.println(SolverStats.HEADER);
+    }
+
+    public synchronized void dump(SolverStats stats) {
+        out.println(stats.toRow());
+    }
+}
@@ -24,10 +24,12 @@ package pascal.taie.analysis.pta.plugin;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.ResultFile;
 import pascal.taie.analysis.pta.PointerAnalysisResult;
 import pascal.taie.analysis.pta.core.cs.element.Pointer;
 import pascal.taie.analysis.pta.pts.PointsToSet;
 import pascal.taie.config.AnalysisOptions;
+import pascal.taie.config.ConfigException;
 import pascal.taie.util.AnalysisException;
 import pascal.taie.util.collection.Streams;
 
@@ -45,6 +47,7 @@ import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.ToIntFunction;
 
@@ -55,6 +58,9 @@ import static pascal.taie.util.collection.CollectionUtils.sum;
  * the ones read from input file.
  * Currently, the compare functionality is mainly for testing purpose.
  * It is not efficient and not recommended applying on large program.
+ * For large results, the points-to sets can be dumped in the binary format
+ * of {@link ResultFile} (option "format" is "binary"), which is detected
+ * automatically when comparing.
  */
 public class ResultProcessor {
 
@@ -78,7 +84,13 @@ public class ResultProcessor {
         }
         String file = options.getString("file");
         switch (action) {
-            case "dump" -> dumpPointsToSet(result, file);
+            case "dump" -> {
+                if ("binary".equals(options.getString("format"))) {
+                    dumpBinaryPointsToSet(result, file);
+                } else {
+                    dumpPointsToSet(result, file);
+                }
+            }
             case "compare" -> comparePointsToSet(result, file);
         }
     }
@@ -140,6 +152,25 @@ public class ResultProcessor {
         }
     }
 
+    private static void dumpBinaryPointsToSet(PointerAnalysisResult result, String output) {
+        if (output == null) {
+            throw new ConfigException("Binary format requires option \"file\"");
+        }
+        logger.info("Dumping points-to set to {} ...", output);
+        try (ResultFile.Writer writer = new ResultFile.Writer(Path.of(output))) {
+            Streams.<Pointer>concat(
+                    result.getCSVars().stream(),
+                    result.getStaticFields().stream(),
+                    result.getInstanceFields().stream(),
+                    result.getArrayIndexes().stream()
+            ).forEach(p -> writer.put(p.toString(),
+                    List.of(toString(p.getPointsToSet()))));
+        } catch (IOException e) {
+            throw new AnalysisException(
+                    "Failed to dump points-to set to " + output, e);
+        }
+    }
+
     private static void dumpPointers(PrintStream out, Collection<? extends Pointer> pointers, String desc) {
         out.println(HEADER + desc);
         pointers.stream()
@@ -150,7 +181,22 @@ public class ResultProcessor {
 
     private static void comparePointsToSet(PointerAnalysisResult result, String input) {
         logger.info("Comparing points-to set with {} ...", input);
-        var inputs = readPointsToSets(input);
+        // expected points-to set of each pointer (string)
+        Function<String, String> inputs;
+        Collection<String> inputPointers;
+        if (isBinary(input)) {
+            // look up the memory-mapped points-to sets on demand
+            ResultFile.Reader reader = openPointsToSets(input);
+            inputs = pointerStr -> {
+                List<String> pts = reader.get(pointerStr);
+                return pts != null ? pts.get(0) : null;
+            };
+            inputPointers = reader.getKeys();
+        } else {
+            Map<String, String> map = readPointsToSets(input);
+            inputs = map::get;
+            inputPointers = map.keySet();
+        }
         Map<String, Pointer> pointers = new LinkedHashMap<>();
         addPointers(pointers, result.getCSVars());
         addPointers(pointers, result.getStaticFields());
@@ -159,17 +205,17 @@ public class ResultProcessor {
         List<String> mismatches = new ArrayList<>();
         pointers.forEach((pointerStr, pointer) -> {
             String given = toString(pointer.getPointsToSet());
-            String expected = inputs.get(pointerStr);
+            String expected = inputs.apply(pointerStr);
             if (!given.equals(expected)) {
                 mismatches.add(String.format("%s, expected: %s, given: %s",
                         pointerStr, expected, given));
             }
         });
-        inputs.keySet()
+        inputPointers
                 .stream()
                 .filter(Predicate.not(pointers::containsKey))
                 .forEach(pointerStr -> {
-                    String expected = inputs.get(pointerStr);
+                    String expected = inputs.apply(pointerStr);
                     mismatches.add(String.format("%s, expected: %s, given: null",
                             pointerStr, expected));
                 });
@@ -179,6 +225,24 @@ public class ResultProcessor {
         }
     }
 
+    private static boolean isBinary(String input) {
+        try {
+            return ResultFile.isBinary(Path.of(input));
+        } catch (IOException e) {
+            throw new AnalysisException(
+                    "Failed to read points-to set from " + input, e);
+        }
+    }
+
+    private static ResultFile.Reader openPointsToSets(String input) {
+        try {
+            return new ResultFile.Reader(Path.of(input));
+        } catch (IOException e) {
+            throw new AnalysisException(
+                    "Failed to read points-to set from " + input, e);
+        }
+    }
+
     private static Map<String, String> readPointsToSets(String input) {
         try {
             Map<String, String> result = new LinkedHashMap<>();